@@ -0,0 +1,159 @@
+package com.corrigeaqui.config;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.corrigeaqui.services.CategoryService;
+import com.corrigeaqui.services.FeedCache;
+import com.corrigeaqui.utils.TwoLevelCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// Caches em dois níveis (TwoLevelCache): L1 Caffeine em cada instância e, com
+// cache.redis.enabled, L2 no Redis compartilhado. Escritas e invalidações são avisadas
+// às outras instâncias pelo canal de pub/sub, que descartam a entrada do próprio L1.
+// Métricas em /actuator/metrics/cache.tiered.gets e cache.tiered.hit.ratio.
+@Slf4j
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String INVALIDATION_CHANNEL = "corrigeaqui:cache-invalidation";
+
+    // Nome -> TTL padrão (cache.ttl.<nome> sobrescreve); categorias mudam pouco, feed e marcadores envelhecem rápido
+    private static final Map<String, Duration> DEFAULT_TTLS = Map.of(
+            CategoryService.CATEGORIES_CACHE, Duration.ofHours(1),
+            CategoryService.CATEGORY_BY_ID_CACHE, Duration.ofHours(1),
+            FeedCache.FEED_CACHE, Duration.ofSeconds(30),
+            FeedCache.MARKERS_CACHE, Duration.ofSeconds(30));
+
+    // Só estes vão ao Redis: são os caros de recalcular. Categorias ficam no L1 (o Optional
+    // de findById nem é serializável) e recebem apenas os avisos de invalidação.
+    private static final List<String> REMOTE_CACHES = List.of(FeedCache.FEED_CACHE, FeedCache.MARKERS_CACHE);
+
+    // Separador da mensagem "origem|cache|chave"; chave vazia = cache inteiro
+    private static final char SEPARATOR = '|';
+
+    // Chaves apagadas por SCAN em lotes neste tamanho ao limpar um cache no Redis
+    private static final int CLEAR_SCAN_BATCH = 1000;
+
+    // Identifica esta instância para ignorar os próprios avisos
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Bean
+    public CacheManager cacheManager(Environment environment,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${cache.l1.max-size:500}") long l1MaxSize,
+                                     @Value("${cache.redis.enabled:false}") boolean redisEnabled,
+                                     @Value("${cache.redis.key-prefix:corrigeaqui:}") String keyPrefix,
+                                     ObjectProvider<RedisConnectionFactory> connectionFactory,
+                                     ObjectProvider<StringRedisTemplate> redisTemplate) {
+        RedisCacheManager remote = null;
+        TwoLevelCache.Publisher publisher = null;
+        if (redisEnabled) {
+            remote = redisCacheManager(connectionFactory.getObject(), environment, keyPrefix);
+            StringRedisTemplate template = redisTemplate.getObject();
+            publisher = (cacheName, key) -> template.convertAndSend(INVALIDATION_CHANNEL,
+                    nodeId + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : ""));
+        }
+
+        SimpleCacheManager manager = new SimpleCacheManager();
+        RedisCacheManager l2 = remote;
+        TwoLevelCache.Publisher bus = publisher;
+        manager.setCaches(DEFAULT_TTLS.keySet().stream().map(name -> {
+            CaffeineCache local = new CaffeineCache(name, Caffeine.newBuilder()
+                    .maximumSize(l1MaxSize)
+                    .expireAfterWrite(ttl(environment, name))
+                    .build());
+            return new TwoLevelCache(local, l2 != null ? l2.getCache(name) : null, bus, meterRegistry);
+        }).toList());
+        // Já pronto para uso fora do contêiner (o listener de invalidação e os testes o usam direto)
+        manager.initializeCaches();
+        return manager;
+    }
+
+    private static RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                                       Environment environment, String keyPrefix) {
+        Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+        for (String name : REMOTE_CACHES) {
+            configurations.put(name, RedisCacheConfiguration.defaultCacheConfig()
+                    .entryTtl(ttl(environment, name))
+                    .prefixCacheNameWith(keyPrefix)
+                    .disableCachingNullValues());
+        }
+        // clear() do feed roda a cada escrita: SCAN em lotes em vez de KEYS, que bloqueia o Redis
+        RedisCacheWriter writer = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory,
+                BatchStrategies.scan(CLEAR_SCAN_BATCH));
+        RedisCacheManager manager = RedisCacheManager.builder(writer)
+                .withInitialCacheConfigurations(configurations)
+                .disableCreateOnMissingCache()
+                .build();
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    private static Duration ttl(Environment environment, String name) {
+        return environment.getProperty("cache.ttl." + name, Duration.class, DEFAULT_TTLS.get(name));
+    }
+
+    // Recebe os avisos das outras instâncias e limpa o L1 correspondente
+    @Bean
+    @ConditionalOnProperty(name = "cache.redis.enabled", havingValue = "true")
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) ->
+                onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8), cacheManager),
+                new ChannelTopic(INVALIDATION_CHANNEL));
+        log.info("Cache em dois níveis com Redis; invalidações no canal {}", INVALIDATION_CHANNEL);
+        return container;
+    }
+
+    // Aviso "origem|cache|chave" de outra instância; os próprios e os malformados são ignorados
+    void onInvalidation(String body, CacheManager cacheManager) {
+        int first = body.indexOf(SEPARATOR);
+        int second = body.indexOf(SEPARATOR, first + 1);
+        if (first < 0 || second < 0 || body.substring(0, first).equals(nodeId)) {
+            return;
+        }
+        if (!(cacheManager.getCache(body.substring(first + 1, second)) instanceof TwoLevelCache cache)) {
+            return;
+        }
+        String key = body.substring(second + 1);
+        if (key.isEmpty()) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(key);
+        }
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,44 @@
+package com.corrigeaqui.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.corrigeaqui.services.MapMarkerService;
+import com.corrigeaqui.services.MarkerClusterService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Preenche o geohash de denúncias antigas que já tinham coordenadas e, na primeira
+// execução, monta os agregados de agrupamento do mapa
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GeohashBackfill implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MapMarkerService mapMarkerService;
+    private final MarkerClusterService markerClusterService;
+
+    @Override
+    public void run(String... args) {
+        int total = 0;
+        int updated;
+        do {
+            updated = mapMarkerService.backfillGeohashes(BATCH_SIZE);
+            total += updated;
+        } while (updated == BATCH_SIZE);
+
+        if (total > 0) {
+            log.info("Geohash preenchido para {} denúncias", total);
+        }
+        try {
+            markerClusterService.rebuildIfEmpty();
+        } catch (DataIntegrityViolationException e) {
+            // Célula gravada ao mesmo tempo por outra instância: os agregados já estão sendo mantidos
+            log.warn("Reconstrução dos agregados do mapa interrompida por conflito: {}", e.getMostSpecificCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.corrigeaqui.config;
+
+import java.sql.DatabaseMetaData;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Coluna image_order (Post.images) em bancos criados antes dela. Roda antes do Hibernate:
+// o ddl-auto=update tentaria ADD COLUMN ... NOT NULL sem default, que falha com a tabela
+// preenchida. Aqui a coluna entra anulável, as imagens antigas são numeradas na ordem
+// física das linhas (a melhor aproximação da ordem de envio que resta) e só então vira
+// NOT NULL, tudo numa transação. Só no PostgreSQL e com a tabela já existente: nos outros
+// casos o Hibernate cria a tabela com a coluna.
+@Slf4j
+@Component
+public class ImageOrderMigration implements InitializingBean {
+
+    private final DataSource dataSource;
+
+    public ImageOrderMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws MetaDataAccessException {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            return;
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // O gerenciador de transações do JPA ainda não existe
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        Integer updated = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.queryForObject("SELECT to_regclass('post_images') IS NULL", Boolean.class)) {
+                return 0;
+            }
+            // Outra réplica subindo junto espera o bloqueio do ALTER e não encontra nada a fazer
+            jdbcTemplate.execute("ALTER TABLE post_images ADD COLUMN IF NOT EXISTS image_order integer");
+            int rows = jdbcTemplate.update("UPDATE post_images pi SET image_order = o.rn FROM ("
+                    + "SELECT ctid AS row_id, ROW_NUMBER() OVER (PARTITION BY post_id ORDER BY ctid) - 1 AS rn "
+                    + "FROM post_images WHERE post_id IN (SELECT post_id FROM post_images WHERE image_order IS NULL)"
+                    + ") o WHERE pi.ctid = o.row_id");
+            jdbcTemplate.execute("ALTER TABLE post_images ALTER COLUMN image_order SET NOT NULL");
+            return rows;
+        });
+        if (updated != null && updated > 0) {
+            log.info("Ordem preenchida para {} imagens de denúncias", updated);
+        }
+    }
+
+    // Faz o EntityManagerFactory (e o ddl-auto) esperar a migração
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependency() {
+            super(ImageOrderMigration.class);
+        }
+    }
+}
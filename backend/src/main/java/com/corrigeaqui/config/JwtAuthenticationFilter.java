@@ -1,20 +1,26 @@
 package com.corrigeaqui.config;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.corrigeaqui.services.JwtService;
+import com.corrigeaqui.services.PrincipalCache;
+import com.corrigeaqui.services.TokenRevocationService;
 
 import java.io.IOException;
 
@@ -24,6 +30,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+
+    // Monta o principal só com as claims do token, sem consultar o usuário no banco
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(
@@ -32,33 +44,56 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        final String jwt = authHeader.substring(7);
+        UserDetails userDetails = statelessPrincipal ? null : principalCache.get(jwt);
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        if (userDetails == null) {
+            userDetails = authenticate(jwt);
+        }
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        if (userDetails != null) {
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails,
+                    null,
+                    userDetails.getAuthorities()
+            );
+            authToken.setDetails(
+                    new WebAuthenticationDetailsSource().buildDetails(request)
+            );
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
     }
+
+    // Um único parse por token; tokens inválidos seguem sem autenticação
+    private UserDetails authenticate(String jwt) {
+        try {
+            Claims claims = jwtService.parseClaims(jwt);
+            if (claims.getSubject() == null) {
+                return null;
+            }
+            if (statelessPrincipal) {
+                JwtPrincipal principal = jwtService.toPrincipal(claims);
+                if (principal != null) {
+                    return tokenRevocationService.isRevoked(principal.id(), principal.tokenVersion()) ? null : principal;
+                }
+            }
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            if (!jwtService.isTokenValid(claims, userDetails)) {
+                return null;
+            }
+            principalCache.put(jwt, userDetails, claims.getExpiration());
+            return userDetails;
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            return null;
+        }
+    }
 }
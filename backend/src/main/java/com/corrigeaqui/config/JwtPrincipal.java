@@ -0,0 +1,28 @@
+package com.corrigeaqui.config;
+
+import com.corrigeaqui.models.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+// Usuário autenticado montado apenas a partir das claims verificadas do token (sem consulta ao banco)
+public record JwtPrincipal(Long id, String email, Role role, int tokenVersion) implements UserDetails {
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -1,5 +1,6 @@
 package com.corrigeaqui.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,6 +35,8 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Retomada de respostas assíncronas (uploads): a requisição original já foi autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/posts/**", "/comments/**", "/likes/**", "/comment-likes/**").permitAll()
                         .requestMatchers("/categories/**", "/uploads/**").permitAll()
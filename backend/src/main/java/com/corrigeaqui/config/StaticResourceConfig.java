@@ -1,25 +1,75 @@
 package com.corrigeaqui.config;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.util.List;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.ResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
 
+import com.corrigeaqui.services.BlobStorage;
+import com.corrigeaqui.utils.UploadCaching;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Configuration
+@RequiredArgsConstructor
 public class StaticResourceConfig implements WebMvcConfigurer {
 
-    @Value("${upload.path:uploads}")
-    private String uploadDir;
+    private final BlobStorage blobStorage;
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path uploadPath = Paths.get(uploadDir);
-        String uploadAbsolutePath = uploadPath.toFile().getAbsolutePath();
-
+        // Mesma política do ImageUploadController.serveFile: ETag forte por metadados,
+        // Last-Modified e Range (já suportados pelo handler); Cache-Control pelo nome.
+        // Sem locations: os arquivos vêm do BlobStorage, em disco ou num bucket
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadAbsolutePath + "/");
+                .setEtagGenerator(UploadCaching::etag)
+                .setUseLastModified(true)
+                .resourceChain(false)
+                .addResolver(new BlobStorageResolver());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof ResourceHttpRequestHandler) {
+                    response.setHeader("Cache-Control", UploadCaching.cacheControl(request.getRequestURI()).getHeaderValue());
+                }
+                return true;
+            }
+        }).addPathPatterns("/uploads/**");
+    }
+
+    private class BlobStorageResolver implements ResourceResolver {
+
+        @Override
+        public Resource resolveResource(HttpServletRequest request, String requestPath,
+                                        List<? extends Resource> locations, ResourceResolverChain chain) {
+            try {
+                return blobStorage.get(requestPath).orElse(null);
+            } catch (IOException e) {
+                log.warn("Falha ao ler {} do armazenamento: {}", requestPath, e.getMessage());
+                return null;
+            }
+        }
+
+        @Override
+        public String resolveUrlPath(String resourcePath, List<? extends Resource> locations,
+                                     ResourceResolverChain chain) {
+            return BlobStorage.isValidKey(resourcePath) ? resourcePath : null;
+        }
     }
-}
\ No newline at end of file
+}
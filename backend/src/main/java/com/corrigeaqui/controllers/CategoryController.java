@@ -4,6 +4,7 @@ import java.net.URI;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,11 +14,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.corrigeaqui.dtos.CategoryDTO;
 import com.corrigeaqui.exceptions.ResourceNotFoundException;
 import com.corrigeaqui.models.Category;
 import com.corrigeaqui.services.CategoryService;
+import com.corrigeaqui.utils.ETags;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -40,14 +43,18 @@ public class CategoryController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de categorias retornada com sucesso")
     })
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest request) {
         List<Category> categories = categoryService.findAll();
+        // 304 sem montar os DTOs quando nenhuma categoria mudou
+        if (request.checkNotModified(ETags.weak("categories", CategoryService.versionStamp(categories).tag()))) {
+            return ETags.notModified();
+        }
         List<CategoryDTO> list = categories.stream().map(c -> CategoryDTO.builder()
                 .id(c.getId())
                 .name(c.getName())
                 .color(c.getColor())
                 .build()).collect(Collectors.toList());
-        return ResponseEntity.ok(list);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(list);
     }
 
     @GetMapping("/{id}")
@@ -80,7 +87,8 @@ public class CategoryController {
     @PatchMapping("/{id}")
     public ResponseEntity<CategoryDTO> patchCategory(@PathVariable Long id, @RequestBody CategoryDTO dto) {
         Category existing = categoryService.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + id));
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + id))
+                .toBuilder().build();
         
         if (dto.getName() != null && !dto.getName().isBlank()) {
             existing.setName(dto.getName());
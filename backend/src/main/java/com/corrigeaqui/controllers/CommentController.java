@@ -2,8 +2,9 @@ package com.corrigeaqui.controllers;
 
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,16 +15,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.corrigeaqui.dtos.CommentDTO;
+import com.corrigeaqui.dtos.CursorPage;
 import com.corrigeaqui.exceptions.ResourceNotFoundException;
 import com.corrigeaqui.models.Comment;
 import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.User;
 import com.corrigeaqui.services.CommentService;
-import com.corrigeaqui.services.CommentLikeService;
 import com.corrigeaqui.services.PostService;
 import com.corrigeaqui.services.UserService;
+import com.corrigeaqui.utils.ETags;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -42,77 +45,79 @@ public class CommentController {
     private final CommentService commentService;
     private final UserService userService;
     private final PostService postService;
-    private final CommentLikeService commentLikeService;
 
     @GetMapping
+    @Operation(summary = "Listar comentários", description = "Com postId, retorna a árvore paginada da denúncia: comentários de "
+            + "primeiro nível e as primeiras respostas de cada um (replyCount/repliesCursor indicam que há mais)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Comentários retornados com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido"),
+            @ApiResponse(responseCode = "404", description = "Denúncia não encontrada")
+    })
     public ResponseEntity<List<CommentDTO>> getAllComments(@RequestParam(required = false) Long postId,
                                                            @RequestParam(required = false) Long userId,
                                                            @RequestParam(defaultValue = "0") int page,
-                                                           @RequestParam(defaultValue = "10") int size) {
-        List<Comment> comments;
-        if (postId != null) {
-            Post post = postService.findById(postId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Post not found: " + postId));
-            comments = commentService.findByPost(post, page, size);
-        } else {
-            comments = commentService.findAll(page, size);
+                                                           @RequestParam(defaultValue = "10") int size,
+                                                           @Parameter(description = "Respostas incluídas por comentário")
+                                                           @RequestParam(defaultValue = "3") int replies,
+                                                           @Parameter(description = "Cursor retornado em X-Next-Cursor (vazio para a primeira página, requer postId)")
+                                                           @RequestParam(required = false) String cursor) {
+
+        if (postId != null && !postService.existsById(postId)) {
+            throw new ResourceNotFoundException("Post not found: " + postId);
         }
-        
-        User currentUser = userId != null ? userService.findById(userId).orElse(null) : null;
-        
-        List<CommentDTO> body = comments.stream()
-                .map(c -> buildCommentDTO(c, currentUser))
-                .collect(Collectors.toList());
+
+        if (postId != null && cursor != null) {
+            CursorPage<CommentDTO> comments = commentService.findThreads(postId, cursor, size, replies, userId);
+            return withCursor(ResponseEntity.ok().header("X-Size", String.valueOf(size)), comments);
+        }
+
+        List<CommentDTO> body = postId != null
+                ? commentService.findThreads(postId, page, size, replies, userId)
+                : commentService.findRecent(page, size, userId);
 
         return ResponseEntity.ok()
                 .header("X-Page", String.valueOf(page))
                 .header("X-Size", String.valueOf(size))
                 .body(body);
     }
-    
-    private CommentDTO buildCommentDTO(Comment c, User currentUser) {
-        String authorName = "Unknown";
-        String authorAvatar = "/uploads/default-avatar.png";
-        Long authorId = null;
-        
-        if (c.getAuthor() != null) {
-            authorId = c.getAuthor().getId();
-            authorName = c.getAuthor().getName() != null ? c.getAuthor().getName() : "Unknown";
-            authorAvatar = c.getAuthor().getAvatar() != null ? c.getAuthor().getAvatar() : "/uploads/default-avatar.png";
-        }
-        
-        List<CommentDTO> replyDTOs = null;
-        if (c.getReplies() != null && !c.getReplies().isEmpty()) {
-            replyDTOs = c.getReplies().stream()
-                .map(reply -> buildCommentDTO(reply, currentUser))
-                .collect(Collectors.toList());
+
+    @GetMapping("/{id}/replies")
+    @Operation(summary = "Listar respostas", description = "Respostas de um comentário em ordem cronológica, paginadas por cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Respostas retornadas com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    })
+    public ResponseEntity<List<CommentDTO>> getReplies(@PathVariable Long id,
+                                                       @RequestParam(required = false) Long userId,
+                                                       @RequestParam(defaultValue = "10") int size,
+                                                       @Parameter(description = "Respostas incluídas por resposta")
+                                                       @RequestParam(defaultValue = "0") int replies,
+                                                       @Parameter(description = "repliesCursor do comentário ou X-Next-Cursor da página anterior")
+                                                       @RequestParam(required = false) String cursor) {
+        CursorPage<CommentDTO> result = commentService.findReplies(id, cursor, size, replies, userId);
+        return withCursor(ResponseEntity.ok().header("X-Size", String.valueOf(size)), result);
+    }
+
+    private ResponseEntity<List<CommentDTO>> withCursor(ResponseEntity.BodyBuilder builder, CursorPage<CommentDTO> page) {
+        if (page.nextCursor() != null) {
+            builder.header("X-Next-Cursor", page.nextCursor());
         }
-        
-        return CommentDTO.builder()
-            .id(c.getId())
-            .content(c.getContent())
-            .authorId(authorId)
-            .authorName(authorName)
-            .authorAvatar(authorAvatar)
-            .postId(c.getPost() != null ? c.getPost().getId() : null)
-            .parentId(c.getParent() != null ? c.getParent().getId() : null)
-            .createdAt(c.getCreatedAt())
-            .images(c.getImages())
-            .likeCount(commentLikeService.getLikeCount(c))
-            .liked(currentUser != null ? commentLikeService.hasUserLiked(currentUser, c) : false)
-            .replies(replyDTOs)
-            .build();
+        return builder.body(page.items());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CommentDTO> getCommentById(@PathVariable Long id, @RequestParam(required = false) Long userId) {
-        Comment c = commentService.findById(id)
+    public ResponseEntity<CommentDTO> getCommentById(@PathVariable Long id,
+                                                     @RequestParam(required = false) Long userId,
+                                                     @RequestParam(defaultValue = "3") int replies,
+                                                     WebRequest request) {
+        Optional<String> etag = commentService.threadETag(id, replies, userId);
+        if (etag.isPresent() && request.checkNotModified(etag.get())) {
+            return ETags.notModified();
+        }
+        CommentDTO dto = commentService.findThread(id, replies, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found: " + id));
-        
-        User currentUser = userId != null ? userService.findById(userId).orElse(null) : null;
-        
-        CommentDTO dto = buildCommentDTO(c, currentUser);
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(dto);
     }
 
     @PostMapping
@@ -2,6 +2,7 @@ package com.corrigeaqui.controllers;
 
 import java.net.URI;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,12 +13,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.corrigeaqui.exceptions.ResourceNotFoundException;
-import com.corrigeaqui.models.Comment;
-import com.corrigeaqui.models.CommentLike;
-import com.corrigeaqui.models.User;
 import com.corrigeaqui.services.CommentLikeService;
-import com.corrigeaqui.services.CommentService;
-import com.corrigeaqui.services.UserService;
+import com.corrigeaqui.services.LikeBuffer;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -33,46 +30,49 @@ import lombok.RequiredArgsConstructor;
 public class CommentLikeController {
 
     private final CommentLikeService commentLikeService;
-    private final UserService userService;
-    private final CommentService commentService;
+    private final LikeBuffer likeBuffer;
 
     @PostMapping("/comments/{commentId}/likes")
     @Operation(summary = "Curtir comentário", description = "Registra uma curtida de um usuário em um comentário")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Curtida registrada com sucesso"),
+            @ApiResponse(responseCode = "202", description = "Curtida aceita para gravação em lote (modo write-behind)"),
             @ApiResponse(responseCode = "404", description = "Usuário ou comentário não encontrado"),
             @ApiResponse(responseCode = "409", description = "Usuário já curtiu este comentário")
     })
     public ResponseEntity<Void> likeComment(
             @Parameter(description = "ID do comentário") @PathVariable Long commentId,
             @Parameter(description = "ID do usuário") @RequestParam Long userId) {
-        User user = userService.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-        Comment comment = commentService.findById(commentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Comment not found: " + commentId));
-        
-        CommentLike like = commentLikeService.likeComment(user, comment);
-        if (like == null) {
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.record(LikeBuffer.Target.COMMENT, userId, commentId, true);
+            return ResponseEntity.accepted().build();
+        }
+        boolean created;
+        try {
+            created = commentLikeService.likeComment(userId, commentId);
+        } catch (DataIntegrityViolationException e) {
+            // Violação de chave estrangeira = usuário ou comentário inexistente
+            throw new ResourceNotFoundException("User or comment not found: " + userId + "/" + commentId);
+        }
+        if (!created) {
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
-        return ResponseEntity.created(URI.create("/comment-likes/" + like.getId())).build();
+        return ResponseEntity.created(URI.create("/comment-likes/comments/" + commentId + "/likes")).build();
     }
 
     @DeleteMapping("/comments/{commentId}/likes")
     @Operation(summary = "Descurtir comentário", description = "Remove a curtida de um usuário em um comentário")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "204", description = "Curtida removida com sucesso"),
-            @ApiResponse(responseCode = "404", description = "Usuário ou comentário não encontrado")
+            @ApiResponse(responseCode = "204", description = "Curtida removida (ou inexistente) com sucesso")
     })
     public ResponseEntity<Void> unlikeComment(
             @Parameter(description = "ID do comentário") @PathVariable Long commentId,
             @Parameter(description = "ID do usuário") @RequestParam Long userId) {
-        User user = userService.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-        Comment comment = commentService.findById(commentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Comment not found: " + commentId));
-        
-        commentLikeService.unlikeComment(user, comment);
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.record(LikeBuffer.Target.COMMENT, userId, commentId, false);
+            return ResponseEntity.accepted().build();
+        }
+        commentLikeService.unlikeComment(userId, commentId);
         return ResponseEntity.noContent().build();
     }
 }
@@ -1,19 +1,15 @@
 package com.corrigeaqui.controllers;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -23,73 +19,68 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.corrigeaqui.services.BlobStorage;
+import com.corrigeaqui.services.ImageStorageService;
+import com.corrigeaqui.services.ImageVariantService;
+import com.corrigeaqui.services.UploadExecutor;
+import com.corrigeaqui.utils.UploadCaching;
+
+import lombok.RequiredArgsConstructor;
+
 @RestController
 @RequestMapping("/uploads")
 @CrossOrigin(origins = "${spring.web.cors.allowed-origins}", allowCredentials = "true")
+@RequiredArgsConstructor
 public class ImageUploadController {
 
-    @Value("${upload.path:uploads}")
-    private String uploadDir;
-
-    private static final List<String> ALLOWED_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif");
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private final ImageStorageService imageStorageService;
+    private final ImageVariantService imageVariantService;
+    private final BlobStorage blobStorage;
+    private final UploadExecutor uploadExecutor;
 
     @PostMapping
-    public ResponseEntity<?> upload(@RequestParam("file") MultipartFile file) {
-        try {
-            // Validate file
-            String originalFilename = file.getOriginalFilename();
-            if (originalFilename == null || originalFilename.isEmpty()) {
-                return ResponseEntity.badRequest().body("File name is required");
-            }
-
-            // Check file size
-            if (file.getSize() > MAX_FILE_SIZE) {
-                return ResponseEntity.badRequest().body("File size exceeds maximum limit of 10MB");
-            }
-
-            // Check file extension
-            String fileExtension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1).toLowerCase();
-            if (!ALLOWED_EXTENSIONS.contains(fileExtension)) {
-                return ResponseEntity.badRequest().body("Only image files (jpg, jpeg, png, gif) are allowed");
+    public CompletableFuture<ResponseEntity<?>> upload(@RequestParam("file") MultipartFile file) {
+        return uploadExecutor.submit(() -> {
+            try {
+                return ResponseEntity.ok(imageStorageService.store(file));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (IOException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to store file: " + e.getMessage());
             }
-
-            // Generate unique filename
-            String filename = UUID.randomUUID() + "_" + StringUtils.cleanPath(originalFilename);
-            Path path = Paths.get(uploadDir).resolve(filename);
-            
-            // Create directory if it doesn't exist
-            Files.createDirectories(path.getParent());
-            
-            // Save file
-            Files.copy(file.getInputStream(), path, StandardCopyOption.REPLACE_EXISTING);
-
-            String url = "/uploads/" + filename;
-            return ResponseEntity.ok(url);
-
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Failed to store file: " + e.getMessage());
-        }
+        });
     }
 
+    // Streaming do arquivo (sem carregá-lo inteiro na memória). Range (206) e
+    // If-None-Match/If-Modified-Since (304) são tratados pelo Spring a partir do
+    // Resource e dos cabeçalhos ETag/Last-Modified da resposta.
     @GetMapping("/{filename:.+}")
-    public ResponseEntity<?> serveFile(@PathVariable String filename) {
-        try {
-            Path file = Paths.get(uploadDir).resolve(filename);
-            if (Files.exists(file)) {
-                String contentType = Files.probeContentType(file);
-                if (contentType == null) {
-                    contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-                }
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .body(Files.readAllBytes(file));
+    public ResponseEntity<Resource> serveFile(@PathVariable String filename) throws IOException {
+        // Nomes inválidos (separadores, "..") não existem no armazenamento: 404
+        Optional<Resource> file = blobStorage.get(filename);
+        if (file.isPresent()) {
+            return serve(filename, file.get(), UploadCaching.cacheControl(filename));
+        }
+        // Versão reduzida ainda não gerada (ou maior que o original): serve o original, sem cache longo
+        Optional<String> original = imageVariantService.originalOf(filename);
+        if (original.isPresent()) {
+            Optional<Resource> originalFile = blobStorage.get(original.get());
+            if (originalFile.isPresent()) {
+                return serve(original.get(), originalFile.get(), CacheControl.noCache());
             }
-            return ResponseEntity.notFound().build();
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error serving file: " + e.getMessage());
         }
+        return ResponseEntity.notFound().build();
+    }
+
+    private static ResponseEntity<Resource> serve(String name, Resource file, CacheControl cacheControl) throws IOException {
+        long lastModified = file.lastModified();
+        return ResponseEntity.ok()
+                .contentType(MediaTypeFactory.getMediaType(name)
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .eTag(UploadCaching.etag(file.contentLength(), lastModified))
+                .lastModified(lastModified)
+                .cacheControl(cacheControl)
+                .body(file);
     }
 }
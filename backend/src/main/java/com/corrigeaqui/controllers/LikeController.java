@@ -2,6 +2,8 @@ package com.corrigeaqui.controllers;
 
 import java.net.URI;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,11 +15,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.corrigeaqui.dtos.LikeDTO;
 import com.corrigeaqui.exceptions.ResourceNotFoundException;
-import com.corrigeaqui.models.Post;
-import com.corrigeaqui.models.User;
+import com.corrigeaqui.services.LikeBuffer;
 import com.corrigeaqui.services.LikeService;
-import com.corrigeaqui.services.PostService;
-import com.corrigeaqui.services.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -34,54 +33,67 @@ import lombok.RequiredArgsConstructor;
 public class LikeController {
 
     private final LikeService likeService;
-    private final UserService userService;
-    private final PostService postService;
+    private final LikeBuffer likeBuffer;
 
     @PostMapping("/{userId}/post/{postId}")
     @Operation(summary = "Curtir denúncia", description = "Registra uma curtida de um usuário em uma denúncia")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Curtida registrada com sucesso"),
+            @ApiResponse(responseCode = "202", description = "Curtida aceita para gravação em lote (modo write-behind)"),
             @ApiResponse(responseCode = "404", description = "Usuário ou denúncia não encontrado"),
             @ApiResponse(responseCode = "409", description = "Usuário já curtiu esta denúncia")
     })
     public ResponseEntity<Void> likePost(
             @Parameter(description = "ID do usuário") @PathVariable Long userId, 
             @Parameter(description = "ID da denúncia") @PathVariable Long postId) {
-        User user = userService.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-        Post post = postService.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post not found: " + postId));
-        var like = likeService.likePost(user, post);
-        if (like == null) {
-            return ResponseEntity.status(org.springframework.http.HttpStatus.CONFLICT).build();
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.record(LikeBuffer.Target.POST, userId, postId, true);
+            return ResponseEntity.accepted().build();
+        }
+        if (!like(userId, postId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
         return ResponseEntity.status(201).build();
     }
 
     @DeleteMapping("/{userId}/post/{postId}")
     public ResponseEntity<Void> unlikePost(@PathVariable Long userId, @PathVariable Long postId) {
-        User user = userService.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-        Post post = postService.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post not found: " + postId));
-        likeService.unlikePost(user, post);
-        return ResponseEntity.noContent().build();
+        return unlike(userId, postId);
     }
 
     // More RESTful endpoints (preferred): operate under /posts/{postId}/likes
     @PostMapping("/posts/{postId}/likes")
     public ResponseEntity<Void> likePostByPost(@PathVariable Long postId, @Valid @RequestBody LikeDTO dto) {
-        Long userId = dto.getUserId();
-        User user = userService.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-        Post post = postService.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post not found: " + postId));
-        var like = likeService.likePost(user, post);
-        if (like == null) {
-            return ResponseEntity.status(org.springframework.http.HttpStatus.CONFLICT).build();
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.record(LikeBuffer.Target.POST, dto.getUserId(), postId, true);
+            return ResponseEntity.accepted().build();
+        }
+        if (!like(dto.getUserId(), postId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
-        return ResponseEntity.created(URI.create("/likes/" + like.getId())).build();
+        return ResponseEntity.created(URI.create("/likes/posts/" + postId + "/likes")).build();
     }
 
     @DeleteMapping("/posts/{postId}/likes")
     public ResponseEntity<Void> unlikePostByPost(@PathVariable Long postId, @RequestParam Long userId) {
-        User user = userService.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-        Post post = postService.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post not found: " + postId));
-        likeService.unlikePost(user, post);
+        return unlike(userId, postId);
+    }
+
+    private ResponseEntity<Void> unlike(Long userId, Long postId) {
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.record(LikeBuffer.Target.POST, userId, postId, false);
+            return ResponseEntity.accepted().build();
+        }
+        likeService.unlikePost(userId, postId);
         return ResponseEntity.noContent().build();
     }
+
+    // Violação de chave estrangeira no insert = usuário ou denúncia inexistente
+    private boolean like(Long userId, Long postId) {
+        try {
+            return likeService.likePost(userId, postId);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResourceNotFoundException("User or post not found: " + userId + "/" + postId);
+        }
+    }
 }
@@ -2,25 +2,20 @@ package com.corrigeaqui.controllers;
 
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -30,21 +25,30 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.corrigeaqui.dtos.FrontAuthorDTO;
+import com.corrigeaqui.dtos.CursorPage;
 import com.corrigeaqui.dtos.FrontPostDTO;
-import com.corrigeaqui.dtos.FrontStatsDTO;
 import com.corrigeaqui.dtos.MapMarkerDTO;
+import com.corrigeaqui.dtos.MapViewportDTO;
+import com.corrigeaqui.dtos.MarkerClusterDTO;
 import com.corrigeaqui.dtos.PostDTO;
 import com.corrigeaqui.exceptions.ResourceNotFoundException;
 import com.corrigeaqui.models.Category;
 import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.User;
-import com.corrigeaqui.repositories.LikeRepository;
 import com.corrigeaqui.services.CategoryService;
+import com.corrigeaqui.services.FeedStreamService;
+import com.corrigeaqui.services.ImageStorageService;
+import com.corrigeaqui.services.MapMarkerService;
+import com.corrigeaqui.services.MarkerClusterService;
 import com.corrigeaqui.services.PostService;
+import com.corrigeaqui.services.UploadExecutor;
 import com.corrigeaqui.services.UserService;
+import com.corrigeaqui.utils.BoundingBox;
+import com.corrigeaqui.utils.ETags;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -65,90 +69,53 @@ public class PostController {
         private final PostService postService;
         private final UserService userService;
         private final CategoryService categoryService;
-        private final LikeRepository likeRepository;
-
-        @Value("${upload.path:uploads}")
-        private String uploadDir;
-
-        private static final List<String> ALLOWED_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif");
-        private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+        private final MapMarkerService mapMarkerService;
+        private final MarkerClusterService markerClusterService;
+        private final ImageStorageService imageStorageService;
+        private final UploadExecutor uploadExecutor;
+        private final FeedStreamService feedStreamService;
         
-        private List<String> toFullImageUrls(List<String> images) {
-                if (images == null || images.isEmpty()) {
-                        return List.of();
-                }
-                return images;
-        }
-
         @GetMapping
         @Transactional(readOnly = true)
-        @Operation(summary = "Listar feed de denúncias", description = "Retorna lista paginada de denúncias ordenadas por data de criação")
+        @Operation(summary = "Listar feed de denúncias", description = "Retorna lista paginada de denúncias ordenadas por data de criação. "
+                        + "Com o parâmetro cursor a paginação é por chave (createdAt, id) e o próximo cursor vem no header X-Next-Cursor")
         @ApiResponses(value = {
                 @ApiResponse(responseCode = "200", description = "Feed retornado com sucesso",
-                        content = @Content(mediaType = "application/json", schema = @Schema(implementation = FrontPostDTO.class)))
+                        content = @Content(mediaType = "application/json", schema = @Schema(implementation = FrontPostDTO.class))),
+                @ApiResponse(responseCode = "400", description = "Cursor inválido")
         })
         public ResponseEntity<List<FrontPostDTO>> getFeed(
                         @Parameter(description = "Número da página") @RequestParam(defaultValue = "0") int page,
                         @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
-                        @Parameter(description = "ID do usuário atual (para verificar likes)") @RequestParam(required = false) Long userId) {
-                Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-                Page<Post> posts = postService.findAll(pageable);
-                
-                User currentUser = null;
-                if (userId != null) {
-                        currentUser = userService.findById(userId).orElse(null);
+                        @Parameter(description = "ID do usuário atual (para verificar likes)") @RequestParam(required = false) Long userId,
+                        @Parameter(description = "Cursor retornado em X-Next-Cursor (vazio para a primeira página)") @RequestParam(required = false) String cursor,
+                        @Parameter(description = "Calcular X-Total-Elements/X-Total-Pages (modo offset)") @RequestParam(defaultValue = "true") boolean withTotal) {
+                if (cursor != null) {
+                        CursorPage<FrontPostDTO> posts = postService.getFeedByCursor(cursor, size, userId);
+                        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                                .header("X-Size", String.valueOf(size));
+                        if (posts.nextCursor() != null) {
+                                builder.header("X-Next-Cursor", posts.nextCursor());
+                        }
+                        return builder.body(posts.items());
                 }
-                
-                final User finalCurrentUser = currentUser;
-                List<FrontPostDTO> response = posts.stream().map(post -> {
-                                
-                                FrontAuthorDTO author = new FrontAuthorDTO(
-                                                post.getAuthor() != null ? post.getAuthor().getName() : "",
-                                                post.getAuthor() != null ? post.getAuthor().getSubtitle() : "",
-                                                post.getAuthor() != null ? post.getAuthor().isVerified() : false,
-                                                post.getAuthor() != null && post.getAuthor().getAvatar() != null
-                                                                ? post.getAuthor().getAvatar()
-                                                                : (post.getAuthor() != null
-                                                                                ? "/avatars/user" + post.getAuthor().getId() + ".jpg"
-                                                                                : "/avatars/default.jpg"));
 
-                                
-                                java.util.List<String> images = post.getImages() != null && !post.getImages().isEmpty()
-                                                ? post.getImages()
-                                                : (post.getImageUrl() != null
-                                                                ? java.util.List.of(post.getImageUrl())
-                                                                : java.util.List.of());
-
-                                FrontStatsDTO stats = new FrontStatsDTO(
-                                                post.getLikes() != null ? post.getLikes().size() : 0,
-                                                post.getComments() != null ? post.getComments().size() : 0,
-                                                post.getReposts() != null ? post.getReposts() : 0,
-                                                post.getShares() != null ? post.getShares() : 0
-                                );
-
-                                // Check if current user liked this post
-                                Boolean likedByUser = null;
-                                if (finalCurrentUser != null) {
-                                        likedByUser = likeRepository.existsByUserAndPost(finalCurrentUser, post);
-                                }
-
-                                return new FrontPostDTO(
-                                                post.getId(),
-                                                author,
-                                                post.getProgress() != null ? post.getProgress() : "Em Revisão",
-                                                post.getTitle(),
-                                                post.getContent(),
-                                                images,
-                                                stats,
-                                                likedByUser);
-                        }).toList();
+                if (!withTotal) {
+                        Slice<FrontPostDTO> posts = postService.getFeedSlice(PageRequest.of(page, size), userId);
+                        return ResponseEntity.ok()
+                                .header("X-Page", String.valueOf(page))
+                                .header("X-Size", String.valueOf(size))
+                                .header("X-Has-Next", String.valueOf(posts.hasNext()))
+                                .body(posts.getContent());
+                }
 
+                Page<FrontPostDTO> posts = postService.getFeed(PageRequest.of(page, size), userId);
                 return ResponseEntity.ok()
                         .header("X-Page", String.valueOf(page))
                         .header("X-Size", String.valueOf(size))
                         .header("X-Total-Elements", String.valueOf(posts.getTotalElements()))
                         .header("X-Total-Pages", String.valueOf(posts.getTotalPages()))
-                        .body(response);
+                        .body(posts.getContent());
         }
 
         @PostMapping
@@ -204,7 +171,11 @@ public class PostController {
 
         @GetMapping("/{id}")
         @Transactional(readOnly = true)
-        public ResponseEntity<PostDTO> getPostById(@PathVariable Long id) {
+        public ResponseEntity<PostDTO> getPostById(@PathVariable Long id, WebRequest request) {
+                Optional<String> etag = postService.etag(id);
+                if (etag.isPresent() && request.checkNotModified(etag.get())) {
+                        return ETags.notModified();
+                }
                 Post post = postService.findById(id)
                                 .orElseThrow(() -> new ResourceNotFoundException("Post not found: " + id));
                 PostDTO dto = PostDTO.builder()
@@ -218,7 +189,7 @@ public class PostController {
                                 .reposts(post.getReposts())
                                 .shares(post.getShares())
                                 .build();
-                return ResponseEntity.ok(dto);
+                return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(dto);
         }
 
         @PatchMapping("/{id}")
@@ -259,6 +230,10 @@ public class PostController {
                                 }
                 
                 Post updated = postService.update(existing);
+                // Categoria pelo cache: evita inicializar o proxy LAZY fora da transação
+                Category category = updated.getCategory() != null
+                                ? categoryService.findById(updated.getCategory().getId()).orElse(null)
+                                : null;
                 PostDTO response = PostDTO.builder()
                                 .id(updated.getId())
                                 .title(updated.getTitle())
@@ -267,9 +242,9 @@ public class PostController {
                                 .createdAt(updated.getCreatedAt())
                                 .images(updated.getImages())
                                 .progress(updated.getProgress())
-                                .categoryId(updated.getCategory() != null ? updated.getCategory().getId() : null)
-                                .categoryName(updated.getCategory() != null ? updated.getCategory().getName() : null)
-                                .categoryColor(updated.getCategory() != null ? updated.getCategory().getColor() : null)
+                                .categoryId(category != null ? category.getId() : null)
+                                .categoryName(category != null ? category.getName() : null)
+                                .categoryColor(category != null ? category.getColor() : null)
                                                                 .latitude(updated.getLatitude())
                                                                 .longitude(updated.getLongitude())
                                 .reposts(updated.getReposts())
@@ -278,35 +253,78 @@ public class PostController {
                 return ResponseEntity.ok(response);
         }
 
-                @GetMapping("/markers")
-                @Transactional(readOnly = true)
-                @Operation(summary = "Obter marcadores do mapa", description = "Retorna todas as denúncias com coordenadas para exibição no mapa")
-                @ApiResponses(value = {
-                        @ApiResponse(responseCode = "200", description = "Marcadores retornados com sucesso")
-                })
-                public ResponseEntity<List<MapMarkerDTO>> getMarkers() {
-                                List<Post> posts = postService.findAll();
-                                List<MapMarkerDTO> markers = posts.stream()
-                                                .filter(p -> p.getLatitude() != null && p.getLongitude() != null)
-                                                .map(p -> {
-                                                        List<String> images = p.getImages() != null && !p.getImages().isEmpty() 
-                                                                ? p.getImages() 
-                                                                : (p.getImageUrl() != null ? List.of(p.getImageUrl()) : List.of());
-                                                        return new MapMarkerDTO(
-                                                                p.getId(),
-                                                                p.getLatitude(),
-                                                                p.getLongitude(),
-                                                                p.getCategory() != null ? p.getCategory().getName() : "Outros",
-                                                                p.getCategory() != null ? p.getCategory().getColor() : "#6b7280",
-                                                                p.getTitle(),
-                                                                p.getContent(),
-                                                                p.getProgress() != null ? p.getProgress() : "Em Revisão",
-                                                                toFullImageUrls(images)
-                                                        );
-                                                })
-                                                .collect(Collectors.toList());
-                                return ResponseEntity.ok(markers);
+        @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        @Operation(summary = "Acompanhar o feed ao vivo", description = "Server-Sent Events com as mudanças do feed: post.created, "
+                        + "comment.created, post.liked (variação do contador) e post.status. Um evento resync indica que "
+                        + "houve perda e a página deve ser recarregada; comentários ping mantêm a conexão aberta")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Fluxo de eventos aberto"),
+                @ApiResponse(responseCode = "429", description = "Limite de conexões ao vivo atingido")
+        })
+        public SseEmitter streamFeed() {
+                return feedStreamService.subscribe();
+        }
+
+        @GetMapping("/markers")
+        @Operation(summary = "Obter marcadores do mapa", description = "Retorna as denúncias com coordenadas para exibição no mapa, "
+                        + "opcionalmente restritas à área visível (minLat, minLng, maxLat, maxLng). O resultado é limitado e "
+                        + "o header X-Truncated indica quando houve corte")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Marcadores retornados com sucesso"),
+                @ApiResponse(responseCode = "400", description = "Área do mapa inválida")
+        })
+        public ResponseEntity<List<MapMarkerDTO>> getMarkers(
+                        @Parameter(description = "Latitude mínima") @RequestParam(required = false) Double minLat,
+                        @Parameter(description = "Longitude mínima") @RequestParam(required = false) Double minLng,
+                        @Parameter(description = "Latitude máxima") @RequestParam(required = false) Double maxLat,
+                        @Parameter(description = "Longitude máxima") @RequestParam(required = false) Double maxLng,
+                        WebRequest request) {
+                BoundingBox box = BoundingBox.ofNullable(minLat, minLng, maxLat, maxLng);
+                if (request.checkNotModified(mapMarkerService.markersETag(box))) {
+                        return ETags.notModified();
                 }
+                MapViewportDTO result = mapMarkerService.findMarkers(box);
+                return ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache())
+                        .header("X-Truncated", String.valueOf(result.truncated()))
+                        .body(result.markers());
+        }
+
+        @GetMapping("/markers/viewport")
+        @Operation(summary = "Obter marcadores da área visível", description = "Retorna marcadores individuais ou, em zoom baixo, "
+                        + "agrupamentos por célula geohash com contagem, centróide e categoria dominante")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Área do mapa retornada com sucesso"),
+                @ApiResponse(responseCode = "400", description = "Área do mapa inválida")
+        })
+        public ResponseEntity<MapViewportDTO> getViewport(
+                        @Parameter(description = "Latitude mínima") @RequestParam double minLat,
+                        @Parameter(description = "Longitude mínima") @RequestParam double minLng,
+                        @Parameter(description = "Latitude máxima") @RequestParam double maxLat,
+                        @Parameter(description = "Longitude máxima") @RequestParam double maxLng,
+                        @Parameter(description = "Nível de zoom do mapa") @RequestParam int zoom) {
+                return ResponseEntity.ok(mapMarkerService.findViewport(new BoundingBox(minLat, minLng, maxLat, maxLng), zoom));
+        }
+
+        @GetMapping("/clusters")
+        @Operation(summary = "Obter agrupamentos do mapa", description = "Retorna os agregados pré-calculados por célula geohash "
+                        + "da área visível, com contagem, centróide e categoria dominante. O custo independe do total de denúncias")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Agrupamentos retornados com sucesso"),
+                @ApiResponse(responseCode = "400", description = "Área do mapa inválida")
+        })
+        public ResponseEntity<List<MarkerClusterDTO>> getClusters(
+                        @Parameter(description = "Latitude mínima") @RequestParam double minLat,
+                        @Parameter(description = "Longitude mínima") @RequestParam double minLng,
+                        @Parameter(description = "Latitude máxima") @RequestParam double maxLat,
+                        @Parameter(description = "Longitude máxima") @RequestParam double maxLng,
+                        @Parameter(description = "Nível de zoom do mapa") @RequestParam int zoom) {
+                MarkerClusterService.ClusterResult result = markerClusterService.findClusters(
+                                new BoundingBox(minLat, minLng, maxLat, maxLng), zoom);
+                return ResponseEntity.ok()
+                        .header("X-Truncated", String.valueOf(result.truncated()))
+                        .body(result.clusters());
+        }
 
         @DeleteMapping("/{id}")
         public ResponseEntity<Void> deletePost(@PathVariable Long id) {
@@ -333,76 +351,59 @@ public class PostController {
         }
 
         @GetMapping("/search")
-        @Transactional(readOnly = true)
-        public ResponseEntity<List<PostDTO>> searchByTitle(@RequestParam String q) {
-                List<Post> posts = postService.searchByTitle(q);
-                List<PostDTO> list = posts.stream().map(p -> PostDTO.builder()
-                                .id(p.getId())
-                                .title(p.getTitle())
-                                .content(p.getContent())
-                                .authorId(p.getAuthor() != null ? p.getAuthor().getId() : null)
-                                .createdAt(p.getCreatedAt())
-                                .images(p.getImages())
-                                .progress(p.getProgress())
-                                .reposts(p.getReposts())
-                                .shares(p.getShares())
-                                .build()).collect(Collectors.toList());
-                return ResponseEntity.ok(list);
+        @Operation(summary = "Buscar denúncias", description = "Busca textual em título e conteúdo, ordenada por relevância, "
+                        + "com filtros opcionais de categoria e status. X-Has-Next indica se há próxima página")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Resultados retornados com sucesso")
+        })
+        public ResponseEntity<List<FrontPostDTO>> search(
+                        @Parameter(description = "Termos de busca") @RequestParam String q,
+                        @Parameter(description = "ID da categoria") @RequestParam(required = false) Long categoryId,
+                        @Parameter(description = "Status (progress) da denúncia") @RequestParam(required = false) String status,
+                        @Parameter(description = "Número da página (0..N)") @RequestParam(defaultValue = "0") int page,
+                        @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "20") int size,
+                        @Parameter(description = "ID do usuário para verificar curtidas") @RequestParam(required = false) Long userId) {
+                Slice<FrontPostDTO> results = postService.search(q, categoryId, status,
+                                PageRequest.of(page, Math.min(size, 100)), userId);
+                return ResponseEntity.ok()
+                        .header("X-Page", String.valueOf(page))
+                        .header("X-Size", String.valueOf(size))
+                        .header("X-Has-Next", String.valueOf(results.hasNext()))
+                        .body(results.getContent());
         }
 
         @PostMapping("/{id}/upload")
-        public ResponseEntity<?> uploadPostImage(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
-                try {
-                        // ve se existe o post
-                        Post post = postService.findById(id)
-                                        .orElseThrow(() -> new ResourceNotFoundException("Post not found: " + id));
-
-                        //valida o arqvuio
-                        String originalFilename = file.getOriginalFilename();
-                        if (originalFilename == null || originalFilename.isEmpty()) {
-                                return ResponseEntity.badRequest().body("File name is required");
-                        }
-
-                        // tamanho
-                        if (file.getSize() > MAX_FILE_SIZE) {
-                                return ResponseEntity.badRequest().body("File size exceeds maximum limit of 10MB");
-                        }
+        public CompletableFuture<ResponseEntity<?>> uploadPostImage(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
+                return uploadExecutor.submit(() -> {
+                        try {
+                                // ve se existe o post
+                                Post post = postService.findById(id)
+                                                .orElseThrow(() -> new ResourceNotFoundException("Post not found: " + id));
 
-                        //extensao
-                        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1).toLowerCase();
-                        if (!ALLOWED_EXTENSIONS.contains(fileExtension)) {
-                                return ResponseEntity.badRequest().body("Only image files (jpg, jpeg, png, gif) are allowed");
-                        }
+                                // grava (ou reaproveita, se o conteúdo já existir)
+                                String imageUrl = imageStorageService.store(file);
 
-                        // salt
-                        String filename = "post" + id + "_" + UUID.randomUUID() + "." + fileExtension;
-                        Path path = Paths.get(uploadDir).resolve(filename);
+                                // adiciona pra lsita das iamgens
+                                List<String> images = post.getImages() != null ? new ArrayList<>(post.getImages()) : new ArrayList<>();
+                                images.add(imageUrl);
+                                post.setImages(images);
                         
-                        // cria o diretorio se nao ter
-                        Files.createDirectories(path.getParent());
-                        
-                        // salva
-                        Files.copy(file.getInputStream(), path, StandardCopyOption.REPLACE_EXISTING);
-
-                        // adiciona pra lsita das iamgens
-                        String imageUrl = "/uploads/" + filename;
-                        List<String> images = post.getImages() != null ? new ArrayList<>(post.getImages()) : new ArrayList<>();
-                        images.add(imageUrl);
-                        post.setImages(images);
-                        
-                        // setta como principal se so ter ela
-                        if (post.getImageUrl() == null || post.getImageUrl().isEmpty()) {
-                                post.setImageUrl(imageUrl);
-                        }
+                                // setta como principal se so ter ela
+                                if (post.getImageUrl() == null || post.getImageUrl().isEmpty()) {
+                                        post.setImageUrl(imageUrl);
+                                }
                         
-                        postService.update(post);
+                                postService.update(post);
 
-                        return ResponseEntity.ok(imageUrl);
+                                return ResponseEntity.ok(imageUrl);
 
-                } catch (IOException e) {
-                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                                        .body("Failed to store post image: " + e.getMessage());
-                }
+                        } catch (IllegalArgumentException e) {
+                                return ResponseEntity.badRequest().body(e.getMessage());
+                        } catch (IOException e) {
+                                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                                .body("Failed to store post image: " + e.getMessage());
+                        }
+                });
         }
 
 }
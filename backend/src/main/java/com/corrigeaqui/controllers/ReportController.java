@@ -4,7 +4,12 @@ import java.net.URI;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -15,7 +20,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.corrigeaqui.config.JwtPrincipal;
+import com.corrigeaqui.dtos.ReportBulkResult;
+import com.corrigeaqui.dtos.ReportBulkUpdateDTO;
 import com.corrigeaqui.dtos.ReportDTO;
+import com.corrigeaqui.dtos.ReportQueueItem;
 import com.corrigeaqui.exceptions.ResourceNotFoundException;
 import com.corrigeaqui.models.Comment;
 import com.corrigeaqui.models.Post;
@@ -24,6 +33,7 @@ import com.corrigeaqui.models.User;
 import com.corrigeaqui.models.enums.ReportStatus;
 import com.corrigeaqui.services.CommentService;
 import com.corrigeaqui.services.PostService;
+import com.corrigeaqui.services.ReportEscalationService;
 import com.corrigeaqui.services.ReportService;
 import com.corrigeaqui.services.UserService;
 
@@ -39,6 +49,7 @@ public class ReportController {
     private final UserService userService;
     private final PostService postService;
     private final CommentService commentService;
+    private final ReportEscalationService reportEscalationService;
 
     @PostMapping("/post")
     public ResponseEntity<ReportDTO> reportPost(@Valid @RequestBody ReportDTO dto) {
@@ -82,20 +93,69 @@ public class ReportController {
     public ResponseEntity<List<ReportDTO>> getAllReports(@RequestParam(required = false) ReportStatus status,
                                                           @RequestParam(defaultValue = "0") int page,
                                                           @RequestParam(defaultValue = "10") int size) {
-        List<Report> reports = (status != null) ? reportService.findByStatus(status) : reportService.findAll();
-        List<ReportDTO> body = reports.stream().map(r -> ReportDTO.builder()
-                .id(r.getId())
-                .reason(r.getReason())
-                .status(r.getStatus())
-                .userId(r.getReporter().getId())
-                .postId(r.getPost() != null ? r.getPost().getId() : null)
-                .commentId(r.getComment() != null ? r.getComment().getId() : null)
-                .createdAt(r.getCreatedAt())
-                .resolution(r.getResolution())
-                .notes(r.getNotes())
-                .build()
-        ).collect(Collectors.toList());
-        return ResponseEntity.ok().header("X-Page", String.valueOf(page)).header("X-Size", String.valueOf(size)).body(body);
+        Page<Report> reports = reportService.findPage(status, PageRequest.of(page, Math.min(size, 100)));
+        List<ReportDTO> body = reports.stream().map(ReportController::toDTO).collect(Collectors.toList());
+        return ResponseEntity.ok()
+                .header("X-Page", String.valueOf(page))
+                .header("X-Size", String.valueOf(size))
+                .header("X-Total-Elements", String.valueOf(reports.getTotalElements()))
+                .header("X-Total-Pages", String.valueOf(reports.getTotalPages()))
+                .body(body);
+    }
+
+    // Ação em massa: status/resolution/notes para uma lista de ids ou para um filtro
+    @PatchMapping
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<ReportBulkResult> bulkUpdate(@RequestBody ReportBulkUpdateDTO dto,
+                                                       Authentication authentication) {
+        return ResponseEntity.ok(reportService.bulkUpdate(dto, moderatorId(authentication)));
+    }
+
+    // Restaura conteúdo oculto automaticamente por excesso de denúncias
+    @DeleteMapping("/hidden/posts/{id}")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<Void> unhidePost(@PathVariable Long id) {
+        if (!reportEscalationService.unhidePost(id)) {
+            throw new ResourceNotFoundException("Hidden post not found: " + id);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/hidden/comments/{id}")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<Void> unhideComment(@PathVariable Long id) {
+        if (!reportEscalationService.unhideComment(id)) {
+            throw new ResourceNotFoundException("Hidden comment not found: " + id);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // Fila de moderação: um item por alvo (postagem/comentário), com contagem de denunciantes
+    @GetMapping("/queue")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<List<ReportQueueItem>> getQueue(@RequestParam(defaultValue = "PENDING") ReportStatus status,
+                                                          @RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(defaultValue = "20") int size) {
+        Slice<ReportQueueItem> queue = reportService.findQueue(status, PageRequest.of(page, Math.min(size, 100)));
+        return ResponseEntity.ok()
+                .header("X-Has-Next", String.valueOf(queue.hasNext()))
+                .body(queue.getContent());
+    }
+
+    // Reivindica as próximas denúncias pendentes para o moderador autenticado
+    @PostMapping("/claim")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<List<ReportDTO>> claimReports(@RequestParam(defaultValue = "20") int limit,
+                                                        Authentication authentication) {
+        List<Report> claimed = reportService.claim(moderatorId(authentication), Math.max(1, Math.min(limit, 100)));
+        return ResponseEntity.ok(claimed.stream().map(ReportController::toDTO).collect(Collectors.toList()));
+    }
+
+    @DeleteMapping("/claim")
+    @PreAuthorize("hasAnyRole('EMPLOYEE', 'ADMIN')")
+    public ResponseEntity<Void> releaseClaims(Authentication authentication) {
+        reportService.releaseClaims(moderatorId(authentication));
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/{id}")
@@ -154,4 +214,32 @@ public class ReportController {
         reportService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static Long moderatorId(Authentication authentication) {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtPrincipal jwt) {
+            return jwt.id();
+        }
+        if (principal instanceof User user) {
+            return user.getId();
+        }
+        throw new IllegalStateException("Unsupported principal: " + principal.getClass().getSimpleName());
+    }
+
+    private static ReportDTO toDTO(Report r) {
+        return ReportDTO.builder()
+                .id(r.getId())
+                .reason(r.getReason())
+                .status(r.getStatus())
+                .userId(r.getReporter() != null ? r.getReporter().getId() : null)
+                .postId(r.getPost() != null ? r.getPost().getId() : null)
+                .commentId(r.getComment() != null ? r.getComment().getId() : null)
+                .createdAt(r.getCreatedAt())
+                .resolution(r.getResolution())
+                .notes(r.getNotes())
+                .priority(r.getPriority())
+                .claimedBy(r.getClaimedBy())
+                .claimedAt(r.getClaimedAt())
+                .build();
+    }
 }
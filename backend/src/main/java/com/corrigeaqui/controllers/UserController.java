@@ -2,19 +2,14 @@ package com.corrigeaqui.controllers;
 
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -24,13 +19,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.corrigeaqui.dtos.UserDTO;
 import com.corrigeaqui.dtos.UserPublicDTO;
 import com.corrigeaqui.exceptions.ResourceNotFoundException;
 import com.corrigeaqui.models.User;
+import com.corrigeaqui.services.ImageStorageService;
+import com.corrigeaqui.services.UploadExecutor;
 import com.corrigeaqui.services.UserService;
+import com.corrigeaqui.utils.ETags;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -48,12 +47,8 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 
     private final UserService userService;
-
-    @Value("${upload.path:uploads}")
-    private String uploadDir;
-
-    private static final List<String> ALLOWED_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif");
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private final ImageStorageService imageStorageService;
+    private final UploadExecutor uploadExecutor;
 
     @GetMapping
     @Operation(summary = "Listar usuários", description = "Retorna lista paginada de usuários")
@@ -80,10 +75,16 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
     })
     public ResponseEntity<UserPublicDTO> getUserById(
-            @Parameter(description = "ID do usuário") @PathVariable Long id) {
+            @Parameter(description = "ID do usuário") @PathVariable Long id, WebRequest request) {
+        Optional<String> etag = userService.etag(id);
+        if (etag.isPresent() && request.checkNotModified(etag.get())) {
+            return ETags.notModified();
+        }
         User user = userService.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + id));
-        return ResponseEntity.ok(new UserPublicDTO(user.getId(), user.getName(), user.getEmail(), user.getSubtitle(), user.getAvatar(), user.isVerified()));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(new UserPublicDTO(user.getId(), user.getName(), user.getEmail(), user.getSubtitle(), user.getAvatar(), user.isVerified()));
     }
 
     @PostMapping
@@ -146,49 +147,26 @@ public class UserController {
     }
 
     @PostMapping("/{id}/upload")
-    public ResponseEntity<?> uploadAvatar(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
-        try {
-            // Valida se existe
-            User user = userService.findById(id)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found: " + id));
-
-            // Valida arquivo
-            String originalFilename = file.getOriginalFilename();
-            if (originalFilename == null || originalFilename.isEmpty()) {
-                return ResponseEntity.badRequest().body("File name is required");
-            }
-
-            // ve se cabe no banc o
-            if (file.getSize() > MAX_FILE_SIZE) {
-                return ResponseEntity.badRequest().body("File size exceeds maximum limit of 10MB");
-            }
-
-            // ve extensao 
-            String fileExtension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1).toLowerCase();
-            if (!ALLOWED_EXTENSIONS.contains(fileExtension)) {
-                return ResponseEntity.badRequest().body("Only image files (jpg, jpeg, png, gif) are allowed");
+    public CompletableFuture<ResponseEntity<?>> uploadAvatar(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
+        return uploadExecutor.submit(() -> {
+            try {
+                // Valida se existe
+                User user = userService.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found: " + id));
+
+                // Grava (ou reaproveita, se o conteúdo já existir); o update solta o avatar anterior
+                String avatarUrl = imageStorageService.store(file);
+                user.setAvatar(avatarUrl);
+                userService.update(user);
+
+                return ResponseEntity.ok(avatarUrl);
+
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (IOException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to store avatar: " + e.getMessage());
             }
-
-            // cria um "salt" e salve
-            String filename = "avatar_user" + id + "_" + UUID.randomUUID() + "." + fileExtension;
-            Path path = Paths.get(uploadDir).resolve(filename);
-
-            // Cria o diretório se não existir
-            Files.createDirectories(path.getParent());
-
-            // Salva o arquivo
-            Files.copy(file.getInputStream(), path, StandardCopyOption.REPLACE_EXISTING);
-
-            // updata o avatar
-            String avatarUrl = "/uploads/" + filename;
-            user.setAvatar(avatarUrl);
-            userService.update(user);
-
-            return ResponseEntity.ok(avatarUrl);
-
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Failed to store avatar: " + e.getMessage());
-        }
+        });
     }
 }
@@ -24,5 +24,9 @@ public class CommentDTO {
     private List<String> images;
     private Long likeCount;
     private Boolean liked;
+    private Long replyCount;
     private List<CommentDTO> replies;
+    // Há mais respostas quando replyCount > replies.size(): continuar em /comments/{id}/replies
+    // com este cursor (null = desde a primeira)
+    private String repliesCursor;
 }
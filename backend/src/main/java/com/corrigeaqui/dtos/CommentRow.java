@@ -0,0 +1,17 @@
+package com.corrigeaqui.dtos;
+
+import java.time.LocalDateTime;
+
+// Comentário carregado via projeção JPQL (autor por join, sem coleções)
+public record CommentRow(
+    Long id,
+    String content,
+    LocalDateTime createdAt,
+    Long postId,
+    Long parentId,
+    Long likeCount,
+    Long replyCount,
+    Long authorId,
+    String authorName,
+    String authorAvatar
+) {}
@@ -0,0 +1,8 @@
+package com.corrigeaqui.dtos;
+
+// Comentário indexado pela busca em memória; pontua para a denúncia postId
+public record CommentSearchRow(
+    Long id,
+    Long postId,
+    String content
+) {}
@@ -0,0 +1,9 @@
+package com.corrigeaqui.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+public record CursorPage<T>(
+    List<T> items,
+    String nextCursor
+) implements Serializable {}
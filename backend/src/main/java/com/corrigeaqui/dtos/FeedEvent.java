@@ -0,0 +1,37 @@
+package com.corrigeaqui.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Evento de domínio do feed, publicado pelos serviços e repassado como está aos clientes
+// de GET /posts/stream: só identificadores e o que mudou, o cliente busca o resto se quiser
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FeedEvent(
+    String type,
+    Long postId,
+    Long commentId,
+    Long parentId,
+    Long delta,
+    String progress
+) {
+    public static final String POST_CREATED = "post.created";
+    public static final String POST_LIKED = "post.liked";
+    public static final String POST_STATUS = "post.status";
+    public static final String COMMENT_CREATED = "comment.created";
+
+    public static FeedEvent postCreated(Long postId) {
+        return new FeedEvent(POST_CREATED, postId, null, null, null, null);
+    }
+
+    // delta = variação líquida do contador de curtidas
+    public static FeedEvent postLiked(Long postId, long delta) {
+        return new FeedEvent(POST_LIKED, postId, null, null, delta, null);
+    }
+
+    public static FeedEvent postStatus(Long postId, String progress) {
+        return new FeedEvent(POST_STATUS, postId, null, null, null, progress);
+    }
+
+    public static FeedEvent commentCreated(Long postId, Long commentId, Long parentId) {
+        return new FeedEvent(COMMENT_CREATED, postId, commentId, parentId, null, null);
+    }
+}
@@ -1,8 +1,10 @@
 package com.corrigeaqui.dtos;
 
+import java.io.Serializable;
+
 public record FrontAuthorDTO(
     String name,
     String subtitle,
     boolean verified,
     String avatar
-) {}
+) implements Serializable {}
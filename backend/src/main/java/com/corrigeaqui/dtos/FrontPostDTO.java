@@ -1,5 +1,6 @@
 package com.corrigeaqui.dtos;
 
+import java.io.Serializable;
 import java.util.List;
 
 public record FrontPostDTO(
@@ -9,6 +10,7 @@ public record FrontPostDTO(
     String title,
     String content,
     List<String> images,
+    List<ImageVariantsDTO> imageVariants,
     FrontStatsDTO stats,
     Boolean likedByUser
-) {}
+) implements Serializable {}
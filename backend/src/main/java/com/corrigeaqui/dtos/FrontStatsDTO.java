@@ -1,8 +1,10 @@
 package com.corrigeaqui.dtos;
 
+import java.io.Serializable;
+
 public record FrontStatsDTO(
     int likes,
     int comments,
     int reposts,
     int shares
-) {}
+) implements Serializable {}
@@ -0,0 +1,11 @@
+package com.corrigeaqui.dtos;
+
+import java.io.Serializable;
+
+// URLs de uma imagem por largura (320/640/1280px); sem versão gerada, aponta para o original
+public record ImageVariantsDTO(
+    String original,
+    String small,
+    String medium,
+    String large
+) implements Serializable {}
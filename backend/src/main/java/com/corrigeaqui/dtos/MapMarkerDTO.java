@@ -1,5 +1,6 @@
 package com.corrigeaqui.dtos;
 
+import java.io.Serializable;
 import java.util.List;
 
 import lombok.AllArgsConstructor;
@@ -7,7 +8,7 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class MapMarkerDTO {
+public class MapMarkerDTO implements Serializable {
     private Long id;
     private Double lat;
     private Double lng;
@@ -17,4 +18,5 @@ public class MapMarkerDTO {
     private String description;
     private String status;
     private List<String> images;
+    private List<ImageVariantsDTO> imageVariants;
 }
@@ -0,0 +1,10 @@
+package com.corrigeaqui.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+public record MapViewportDTO(
+    List<MapMarkerDTO> markers,
+    List<MarkerClusterDTO> clusters,
+    boolean truncated
+) implements Serializable {}
@@ -0,0 +1,10 @@
+package com.corrigeaqui.dtos;
+
+public record MarkerClusterDTO(
+    String cell,
+    Double lat,
+    Double lng,
+    long count,
+    String category,
+    String categoryColor
+) {}
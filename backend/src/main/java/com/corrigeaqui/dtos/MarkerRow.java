@@ -0,0 +1,13 @@
+package com.corrigeaqui.dtos;
+
+// Marcador carregado via projeção JPQL (categoria resolvida pelo cache do CategoryService)
+public record MarkerRow(
+    Long id,
+    Double latitude,
+    Double longitude,
+    String title,
+    String content,
+    String progress,
+    String imageUrl,
+    Long categoryId
+) {}
@@ -0,0 +1,22 @@
+package com.corrigeaqui.dtos;
+
+import java.time.LocalDateTime;
+
+// Linha do feed carregada via projeção JPQL (sem inicializar coleções do Post)
+public record PostFeedRow(
+    Long id,
+    String title,
+    String content,
+    String progress,
+    String imageUrl,
+    Integer reposts,
+    Integer shares,
+    LocalDateTime createdAt,
+    Long authorId,
+    String authorName,
+    String authorSubtitle,
+    Boolean authorVerified,
+    String authorAvatar,
+    Long likeCount,
+    Long commentCount
+) {}
@@ -0,0 +1,12 @@
+package com.corrigeaqui.dtos;
+
+// Estado de uma denúncia relevante para os agregados do mapa
+public record PostGeoState(
+    Double latitude,
+    Double longitude,
+    Long categoryId
+) {
+    public boolean hasCoordinates() {
+        return latitude != null && longitude != null;
+    }
+}
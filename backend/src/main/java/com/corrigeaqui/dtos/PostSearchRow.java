@@ -0,0 +1,10 @@
+package com.corrigeaqui.dtos;
+
+// Campos indexados pela busca em memória (search.engine=memory)
+public record PostSearchRow(
+    Long id,
+    String title,
+    String content,
+    Long categoryId,
+    String progress
+) {}
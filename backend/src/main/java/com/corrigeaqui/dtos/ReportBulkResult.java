@@ -0,0 +1,16 @@
+package com.corrigeaqui.dtos;
+
+import java.util.Map;
+
+// Resultado de PATCH /reports: id -> desfecho, na ordem do pedido (ou do filtro).
+// truncated: o filtro casou mais denúncias que o limite por pedido; repita para as demais.
+public record ReportBulkResult(
+    int updated,
+    boolean truncated,
+    Map<Long, Outcome> outcomes
+) {
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND
+    }
+}
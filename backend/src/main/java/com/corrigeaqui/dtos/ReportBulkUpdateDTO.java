@@ -0,0 +1,29 @@
+package com.corrigeaqui.dtos;
+
+import java.util.List;
+
+import com.corrigeaqui.models.enums.ReportStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// PATCH /reports: alvo por lista de ids ou por filtro (campos nulos não filtram);
+// status/resolution/notes nulos ficam como estão
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportBulkUpdateDTO {
+    private List<Long> ids;
+
+    private ReportStatus fromStatus;
+    private Long postId;
+    private Long commentId;
+    private Long claimedBy;
+
+    private ReportStatus status;
+    private String resolution;
+    private String notes;
+}
@@ -23,5 +23,8 @@ public class ReportDTO {
     private LocalDateTime createdAt;
     private String resolution;
     private String notes;
+    private Integer priority;
+    private Long claimedBy;
+    private LocalDateTime claimedAt;
 }
 
@@ -0,0 +1,14 @@
+package com.corrigeaqui.dtos;
+
+import java.time.LocalDateTime;
+
+// Alvo na fila de moderação: denúncias do mesmo status agrupadas por postagem/comentário
+public record ReportQueueItem(
+    Long postId,
+    Long commentId,
+    Long reports,
+    Long reporters,
+    Integer priority,
+    LocalDateTime firstReportedAt,
+    LocalDateTime lastReportedAt
+) {}
@@ -0,0 +1,27 @@
+package com.corrigeaqui.dtos;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Resumo de um conjunto de linhas para ETags: quantidade, maior id e soma das versões mudam
+// quando alguma linha entra, sai ou é alterada. lastUpdate cobre dados de outras tabelas
+// exibidos junto (ex.: nome e avatar do autor)
+public record VersionStamp(
+    Long count,
+    Long maxId,
+    Long versionSum,
+    LocalDateTime lastUpdate
+) {
+    public VersionStamp(Long count, Long maxId, Long versionSum) {
+        this(count, maxId, versionSum, null);
+    }
+
+    public boolean isEmpty() {
+        return count == null || count == 0;
+    }
+
+    public String tag() {
+        String tag = count + "." + (maxId != null ? maxId : 0) + "." + (versionSum != null ? versionSum : 0);
+        return lastUpdate != null ? tag + "." + lastUpdate.toInstant(ZoneOffset.UTC).toEpochMilli() : tag;
+    }
+}
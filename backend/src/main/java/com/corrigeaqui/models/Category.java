@@ -1,11 +1,14 @@
 package com.corrigeaqui.models;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,7 +20,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Category {
     @Id
@@ -30,4 +33,10 @@ public class Category {
 
     @Column(nullable = false)
     private String color; // Hex 
+
+    // Controle otimista; a soma das versões entra no ETag de GET /categories
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import jakarta.persistence.CascadeType;
@@ -16,10 +17,12 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,7 +31,9 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+    @Index(name = "idx_comments_post_created_at_id", columnList = "post_id, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -46,6 +51,29 @@ public class Comment {
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    // Controle otimista; com likeCount e replyCount compõe o ETag de GET /comments/{id}
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Contadores mantidos por UPDATE atômico (CommentLikeService/CommentService)
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long likeCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long replyCount = 0L;
+
+    // Oculto por excesso de denúncias (ReportEscalationService); alterado só por UPDATE
+    @Builder.Default
+    @ColumnDefault("false")
+    @Column(nullable = false, updatable = false)
+    private Boolean hidden = false;
+
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "comment_images", joinColumns = @JoinColumn(name = "comment_id"))
     @Column(name = "image_url")
@@ -0,0 +1,56 @@
+package com.corrigeaqui.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+// Agregado de denúncias por célula geohash, precisão e categoria (categoryId 0 = sem categoria)
+@Entity
+@Table(name = "marker_cells",
+    uniqueConstraints = {@UniqueConstraint(columnNames = {"cell_precision", "cell", "category_id"})},
+    indexes = {@Index(name = "idx_marker_cells_center", columnList = "cell_precision, center_lat, center_lng")})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class MarkerCell {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "cell_precision", nullable = false)
+    private Integer cellPrecision;
+
+    @Column(nullable = false, length = 12)
+    private String cell;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private Long postCount;
+
+    @Column(nullable = false)
+    private Double sumLat;
+
+    @Column(nullable = false)
+    private Double sumLng;
+
+    @Column(nullable = false)
+    private Double centerLat;
+
+    @Column(nullable = false)
+    private Double centerLng;
+}
@@ -0,0 +1,69 @@
+package com.corrigeaqui.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+// Evento de domínio gravado na mesma transação da alteração que o gerou (outbox).
+// O OutboxRelay entrega aos OutboxConsumer em ordem de id e apaga a linha; falhas voltam
+// com espera crescente e, esgotadas as tentativas, a linha fica para inspeção.
+@Entity
+@Table(name = "outbox_events",
+    indexes = {
+        @Index(name = "idx_outbox_events_available", columnList = "available_at, id"),
+        // Evento anterior pendente do mesmo agregado (OutboxEventRepository.lockBatch)
+        @Index(name = "idx_outbox_events_aggregate", columnList = "aggregate_type, aggregate_id, id")
+    })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    // post, comment, report ou file; eventos do mesmo agregado são entregues em ordem
+    @Column(nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(nullable = false, length = 128)
+    private String aggregateId;
+
+    @Column(nullable = false, length = 64)
+    private String eventType;
+
+    // JSON
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
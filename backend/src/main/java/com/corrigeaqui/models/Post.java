@@ -5,8 +5,10 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
+import com.corrigeaqui.utils.GeoHash;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 import jakarta.persistence.CascadeType;
@@ -18,10 +20,15 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderColumn;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -30,7 +37,11 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+    @Index(name = "idx_posts_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_posts_lat_lng", columnList = "latitude, longitude"),
+    @Index(name = "idx_posts_geohash", columnList = "geohash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -50,8 +61,10 @@ public class Post {
 
     private String imageUrl;
 
+    // Ordem de envio preservada: a primeira imagem é a principal no frontend
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "post_images", joinColumns = @JoinColumn(name = "post_id"))
+    @OrderColumn(name = "image_order")
     @Column(name = "image_url")
     @Builder.Default
     private List<String> images = new ArrayList<>();
@@ -65,13 +78,41 @@ public class Post {
     @Builder.Default
     private Integer shares = 0;
 
+    // Contadores mantidos por UPDATE atômico (LikeService/CommentService), nunca pelo flush da entidade
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long likeCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long commentCount = 0L;
+
+    // Oculta por excesso de denúncias (ReportEscalationService): sai do feed e do mapa.
+    // Alterado só por UPDATE (hide/unhide), nunca pelo flush da entidade
+    @Builder.Default
+    @ColumnDefault("false")
+    @Column(nullable = false, updatable = false)
+    private Boolean hidden = false;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    // Controle otimista e base do ETag de GET /posts/{id}; os contadores (UPDATE atômico) não o alteram
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     private Double latitude;
 
     private Double longitude;
 
+    // Derivado de latitude/longitude; usado para agrupar marcadores por célula
+    @Column(length = GeoHash.MAX_PRECISION)
+    private String geohash;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
@@ -92,5 +133,12 @@ public class Post {
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @ToString.Exclude
     private List<Report> reports;
-}
 
+    @PrePersist
+    @PreUpdate
+    public void updateGeohash() {
+        geohash = latitude != null && longitude != null
+                ? GeoHash.encode(latitude, longitude, GeoHash.MAX_PRECISION)
+                : null;
+    }
+}
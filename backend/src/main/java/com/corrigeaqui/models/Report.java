@@ -2,6 +2,7 @@ package com.corrigeaqui.models;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import com.corrigeaqui.models.enums.ReportStatus;
@@ -10,27 +11,41 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+// Denúncia de moderação (spam/abuso) sobre uma postagem ou um comentário. A fila de
+// moderação pagina por (status, created_at) e ordena por prioridade; um moderador reivindica
+// um lote (claimedBy/claimedAt) e a reivindicação vence após reports.claim-ttl.
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = {
+    @Index(name = "idx_reports_status_created", columnList = "status, created_at"),
+    @Index(name = "idx_reports_status_priority", columnList = "status, priority, created_at"),
+    @Index(name = "idx_reports_post", columnList = "post_id"),
+    @Index(name = "idx_reports_comment", columnList = "comment_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Report {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
     private Long id;
 
     private String reason;
@@ -42,21 +57,37 @@ public class Report {
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    // Gravidade do motivo + peso por denúncia pendente do mesmo alvo (ReportService.severity)
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    // Moderador (id do usuário) que reivindicou a denúncia
+    @Column(name = "claimed_by")
+    private Long claimedBy;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
     @Column(columnDefinition = "TEXT")
     private String resolution;
 
     @Column(columnDefinition = "TEXT")
     private String notes;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "reporter_id")
     private User reporter;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id", nullable = true)
     private Post post;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "comment_id", nullable = true)
     private Comment comment;
 }
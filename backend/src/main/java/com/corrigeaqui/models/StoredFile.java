@@ -0,0 +1,60 @@
+package com.corrigeaqui.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+// Arquivo enviado, endereçado pelo SHA-256 do conteúdo; refCount conta as referências
+// (denúncias, comentários, avatares) e o arquivo sai do disco quando chega a zero
+@Entity
+@Table(name = "stored_files", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"sha256"}),
+    @UniqueConstraint(columnNames = {"path"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class StoredFile {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    // Chave no BlobStorage; a URL pública é /uploads/{path}
+    @Column(nullable = false, length = 128)
+    private String path;
+
+    @Column(nullable = false)
+    private Long size;
+
+    private String contentType;
+
+    // Mantido por UPDATE atômico (ImageStorageService), nunca pelo flush da entidade
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long refCount = 0L;
+
+    // Renovado a cada novo envio do mesmo conteúdo: conta a carência dos uploads não anexados
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
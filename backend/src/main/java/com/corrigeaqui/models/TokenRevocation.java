@@ -0,0 +1,38 @@
+package com.corrigeaqui.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+// Menor versão de token aceita para o usuário desde revokedAt (troca de email/senha/papel,
+// ou Integer.MAX_VALUE quando removido). Lida pelo TokenRevocationService em todas as
+// instâncias e apagada depois de jwt.expiration, quando os tokens que barrava já venceram.
+@Entity
+@Table(name = "token_revocations",
+    indexes = {@Index(name = "idx_token_revocations_revoked_at", columnList = "revoked_at")})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class TokenRevocation {
+    // id do usuário (sem chave estrangeira: sobrevive à remoção dele)
+    @Id
+    @EqualsAndHashCode.Include
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer minVersion;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
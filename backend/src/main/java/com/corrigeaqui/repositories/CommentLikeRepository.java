@@ -4,12 +4,29 @@ import com.corrigeaqui.models.Comment;
 import com.corrigeaqui.models.CommentLike;
 import com.corrigeaqui.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 public interface CommentLikeRepository extends JpaRepository<CommentLike, Long> {
     Optional<CommentLike> findByUserAndComment(User user, Comment comment);
     boolean existsByUserAndComment(User user, Comment comment);
     long countByComment(Comment comment);
-    void deleteByUserAndComment(User user, Comment comment);
+
+    @Query("SELECT l.comment.id FROM CommentLike l WHERE l.user.id = :userId AND l.comment.id IN :commentIds")
+    Set<Long> findLikedCommentIds(@Param("userId") Long userId, @Param("commentIds") Collection<Long> commentIds);
+
+    // Uma única instrução: 1 se a curtida foi criada, 0 se já existia
+    @Modifying
+    @Query(value = "INSERT INTO comment_likes (user_id, comment_id) VALUES (:userId, :commentId) "
+            + "ON CONFLICT (user_id, comment_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("commentId") Long commentId);
+
+    @Modifying
+    @Query("DELETE FROM CommentLike l WHERE l.user = :user AND l.comment = :comment")
+    int deleteByUserAndComment(@Param("user") User user, @Param("comment") Comment comment);
 }
@@ -1,15 +1,21 @@
 
 package com.corrigeaqui.repositories;
 
+import com.corrigeaqui.dtos.CommentRow;
+import com.corrigeaqui.dtos.CommentSearchRow;
+import com.corrigeaqui.dtos.VersionStamp;
 import com.corrigeaqui.models.Comment;
 import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -19,13 +25,115 @@ import org.springframework.data.domain.Pageable;
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByAuthor(User author);
     
-    @Query("SELECT c FROM Comment c WHERE c.post = :post AND c.parent IS NULL ORDER BY c.createdAt DESC")
-    @EntityGraph(attributePaths = {"author", "replies", "replies.author"})
-    List<Comment> findByPostWithAuthor(@Param("post") Post post);
-    
     @EntityGraph(attributePaths = {"author"})
     Optional<Comment> findById(Long id);
     
+    String ROW_SELECT = "SELECT new com.corrigeaqui.dtos.CommentRow("
+            + "c.id, c.content, c.createdAt, c.post.id, c.parent.id, c.likeCount, c.replyCount, "
+            + "a.id, a.name, a.avatar) "
+            + "FROM Comment c LEFT JOIN c.author a ";
+
+    // Comentários ocultos (excesso de denúncias) não aparecem nas listagens
+    String VISIBLE = "c.hidden = false ";
+
+    // Primeiro nível, mais recentes primeiro, por cursor (createdAt, id)
+    @Query(ROW_SELECT + "WHERE c.post.id = :postId AND c.parent IS NULL AND " + VISIBLE
+            + "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentRow> findTopLevelRows(@Param("postId") Long postId, Pageable pageable);
+
+    @Query(ROW_SELECT + "WHERE c.post.id = :postId AND c.parent IS NULL AND " + VISIBLE
+            + "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) "
+            + "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentRow> findTopLevelRowsAfter(@Param("postId") Long postId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+
+    // Respostas em ordem cronológica, por cursor (createdAt, id)
+    @Query(ROW_SELECT + "WHERE c.parent.id = :parentId AND " + VISIBLE + "ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentRow> findReplyRows(@Param("parentId") Long parentId, Pageable pageable);
+
+    @Query(ROW_SELECT + "WHERE c.parent.id = :parentId AND " + VISIBLE
+            + "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) "
+            + "ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentRow> findReplyRowsAfter(@Param("parentId") Long parentId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    @Query(ROW_SELECT + "WHERE " + VISIBLE + "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentRow> findRecentRows(Pageable pageable);
+
+    @Query(ROW_SELECT + "WHERE c.id IN :ids AND " + VISIBLE + "ORDER BY c.createdAt ASC, c.id ASC")
+    List<CommentRow> findRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Ids das :limit primeiras respostas de cada comentário informado, em uma consulta
+    @Query(value = "SELECT r.id FROM ("
+            + "SELECT c.id, ROW_NUMBER() OVER (PARTITION BY c.parent_id ORDER BY c.created_at, c.id) AS rn "
+            + "FROM comments c WHERE c.parent_id IN (:parentIds) AND c.hidden = false"
+            + ") r WHERE r.rn <= :limit", nativeQuery = true)
+    List<Long> findFirstReplyIds(@Param("parentIds") Collection<Long> parentIds, @Param("limit") int limit);
+
+    @Query("SELECT c.id, i FROM Comment c JOIN c.images i WHERE c.id IN :ids")
+    List<Object[]> findImagesByCommentIds(@Param("ids") Collection<Long> ids);
+
+    // Carga do índice de busca em memória, em lotes por id; ocultos ficam de fora
+    String SEARCH_SELECT = "SELECT new com.corrigeaqui.dtos.CommentSearchRow(c.id, c.post.id, c.content) FROM Comment c ";
+
+    @Query(SEARCH_SELECT + "WHERE c.id > :afterId AND " + VISIBLE + "ORDER BY c.id")
+    List<CommentSearchRow> findSearchRows(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SEARCH_SELECT + "WHERE c.id IN :ids AND " + VISIBLE)
+    List<CommentSearchRow> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Comentário e respostas diretas: versões e contadores de todos, e a última alteração dos autores
+    @Query("SELECT new com.corrigeaqui.dtos.VersionStamp(COUNT(c), MAX(c.id), "
+            + "SUM(c.version + c.likeCount + c.replyCount), MAX(a.updatedAt)) "
+            + "FROM Comment c LEFT JOIN c.parent p LEFT JOIN c.author a "
+            + "WHERE (c.id = :id OR p.id = :id) AND " + VISIBLE)
+    VersionStamp findThreadStamp(@Param("id") Long id);
+
+    // Imagens das respostas diretas (removidas em cascata com o comentário), uma vez por resposta
+    @Query("SELECT DISTINCT c.id, i FROM Comment c JOIN c.images i WHERE c.parent.id = :parentId")
+    List<Object[]> findReplyImageUrls(@Param("parentId") Long parentId);
+
     List<Comment> findByPost(Post post);
     Page<Comment> findByPost(Post post, Pageable pageable);
+    long countByParent(Comment parent);
+
+    @Modifying
+    @Query("UPDATE Comment c SET c.hidden = :hidden WHERE c.id = :id AND c.hidden <> :hidden")
+    int updateHidden(@Param("id") Long id, @Param("hidden") boolean hidden);
+
+    @Modifying
+    @Query("UPDATE Comment c SET c.likeCount = c.likeCount + :delta WHERE c.id = :id")
+    int incrementLikeCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE Comment c SET c.replyCount = c.replyCount + :delta WHERE c.id = :id")
+    int incrementReplyCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Query("SELECT MAX(c.id) FROM Comment c")
+    Optional<Long> findMaxId();
+
+    // Mesmo esquema de PostRepository.lockDriftedLikeCounts
+    @Query(value = "SELECT c.id FROM comments c WHERE c.id > :afterId AND c.id <= :toId "
+            + "AND c.like_count <> (SELECT COUNT(*) FROM comment_likes l WHERE l.comment_id = c.id) "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDriftedLikeCounts(@Param("afterId") long afterId, @Param("toId") long toId);
+
+    @Query(value = "SELECT c.id FROM comments c WHERE c.id > :afterId AND c.id <= :toId "
+            + "AND c.reply_count <> (SELECT COUNT(*) FROM comments r WHERE r.parent_id = c.id) "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDriftedReplyCounts(@Param("afterId") long afterId, @Param("toId") long toId);
+
+    @Modifying
+    @Query("UPDATE Comment c SET c.likeCount = (SELECT COUNT(l) FROM CommentLike l WHERE l.comment = c) "
+            + "WHERE c.id IN :ids AND c.likeCount <> (SELECT COUNT(l) FROM CommentLike l WHERE l.comment = c)")
+    int reconcileLikeCounts(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Comment c SET c.replyCount = (SELECT COUNT(r) FROM Comment r WHERE r.parent = c) "
+            + "WHERE c.id IN :ids AND c.replyCount <> (SELECT COUNT(r) FROM Comment r WHERE r.parent = c)")
+    int reconcileReplyCounts(@Param("ids") Collection<Long> ids);
 }
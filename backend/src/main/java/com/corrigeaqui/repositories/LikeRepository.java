@@ -5,15 +5,28 @@ import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Set;
 
 @Repository
 public interface LikeRepository extends JpaRepository<Like, Long> {
     boolean existsByUserAndPost(User user, Post post);
     long countByPost(Post post);
-    
+
+    @Query("SELECT l.post.id FROM Like l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    Set<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    // Uma única instrução: 1 se a curtida foi criada, 0 se já existia
+    @Modifying
+    @Query(value = "INSERT INTO likes (user_id, post_id) VALUES (:userId, :postId) "
+            + "ON CONFLICT (user_id, post_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("postId") Long postId);
+
     @Modifying
-    @Transactional
-    void deleteByUserAndPost(User user, Post post);
-}
\ No newline at end of file
+    @Query("DELETE FROM Like l WHERE l.user = :user AND l.post = :post")
+    int deleteByUserAndPost(@Param("user") User user, @Param("post") Post post);
+}
@@ -0,0 +1,45 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.models.MarkerCell;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MarkerCellRepository extends JpaRepository<MarkerCell, Long> {
+
+    @Query("SELECT m FROM MarkerCell m WHERE m.cellPrecision = :precision "
+            + "AND m.centerLat BETWEEN :minLat AND :maxLat AND m.centerLng BETWEEN :minLng AND :maxLng")
+    List<MarkerCell> findInBox(@Param("precision") int precision,
+                               @Param("minLat") double minLat,
+                               @Param("minLng") double minLng,
+                               @Param("maxLat") double maxLat,
+                               @Param("maxLng") double maxLng);
+
+    @Modifying
+    @Query(value = "INSERT INTO marker_cells (cell_precision, cell, category_id, post_count, sum_lat, sum_lng, center_lat, center_lng) "
+            + "VALUES (:precision, :cell, :categoryId, :delta, :sumLat, :sumLng, :centerLat, :centerLng) "
+            + "ON CONFLICT (cell_precision, cell, category_id) DO UPDATE SET "
+            + "post_count = marker_cells.post_count + EXCLUDED.post_count, "
+            + "sum_lat = marker_cells.sum_lat + EXCLUDED.sum_lat, "
+            + "sum_lng = marker_cells.sum_lng + EXCLUDED.sum_lng", nativeQuery = true)
+    int upsert(@Param("precision") int precision,
+               @Param("cell") String cell,
+               @Param("categoryId") long categoryId,
+               @Param("delta") long delta,
+               @Param("sumLat") double sumLat,
+               @Param("sumLng") double sumLng,
+               @Param("centerLat") double centerLat,
+               @Param("centerLng") double centerLng);
+
+    @Modifying
+    @Query("DELETE FROM MarkerCell m WHERE m.cellPrecision = :precision AND m.cell = :cell "
+            + "AND m.categoryId = :categoryId AND m.postCount <= 0")
+    int deleteIfEmpty(@Param("precision") int precision,
+                      @Param("cell") String cell,
+                      @Param("categoryId") long categoryId);
+}
@@ -0,0 +1,41 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.models.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Próximo lote em ordem de gravação; linhas travadas por outra instância são puladas.
+    // Só entra o evento mais antigo pendente de cada agregado: enquanto ele existir (em
+    // entrega em outra instância ou esperando nova tentativa), os seguintes esperam.
+    // Eventos com tentativas esgotadas não seguram o agregado.
+    @Query(value = "SELECT * FROM outbox_events e WHERE e.available_at <= :now AND e.attempts < :maxAttempts "
+            + "AND NOT EXISTS (SELECT 1 FROM outbox_events o WHERE o.aggregate_type = e.aggregate_type "
+            + "AND o.aggregate_id = e.aggregate_id AND o.id < e.id AND o.attempts < :maxAttempts) "
+            + "ORDER BY e.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockBatch(@Param("now") LocalDateTime now,
+                                @Param("maxAttempts") int maxAttempts,
+                                @Param("limit") int limit);
+
+    // Reserva do lote: fora de lockBatch até o fim da reserva, mas ainda segurando o agregado
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.availableAt = :leaseUntil WHERE e.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = :attempts, e.availableAt = :availableAt, e.lastError = :lastError "
+            + "WHERE e.id = :id")
+    int reschedule(@Param("id") Long id,
+                   @Param("attempts") int attempts,
+                   @Param("availableAt") LocalDateTime availableAt,
+                   @Param("lastError") String lastError);
+}
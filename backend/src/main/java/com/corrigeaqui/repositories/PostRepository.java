@@ -1,17 +1,184 @@
-
 package com.corrigeaqui.repositories;
 
+import com.corrigeaqui.dtos.MarkerRow;
+import com.corrigeaqui.dtos.PostFeedRow;
+import com.corrigeaqui.dtos.PostGeoState;
+import com.corrigeaqui.dtos.PostSearchRow;
+import com.corrigeaqui.dtos.VersionStamp;
 import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
     List<Post> findByAuthor(User author);
     List<Post> findByAuthorId(Long authorId);
-    List<Post> findByTitleContainingIgnoreCase(String title);
-    
+
+    String FEED_SELECT = "SELECT new com.corrigeaqui.dtos.PostFeedRow("
+            + "p.id, p.title, p.content, p.progress, p.imageUrl, p.reposts, p.shares, p.createdAt, "
+            + "a.id, a.name, a.subtitle, a.verified, a.avatar, "
+            + "p.likeCount, p.commentCount) "
+            + "FROM Post p LEFT JOIN p.author a ";
+
+    String FEED_ORDER = "ORDER BY p.createdAt DESC, p.id DESC";
+
+    // Denúncias ocultas ficam fora do feed e do mapa; são poucas, então o filtro não muda o plano
+    String VISIBLE = "p.hidden = false ";
+
+    @Query(value = FEED_SELECT + "WHERE " + VISIBLE + FEED_ORDER,
+           countQuery = "SELECT COUNT(p) FROM Post p WHERE " + VISIBLE)
+    Page<PostFeedRow> findFeed(Pageable pageable);
+
+    // Sem count(*): modo offset quando o cliente dispensa o total
+    @Query(FEED_SELECT + "WHERE " + VISIBLE + FEED_ORDER)
+    Slice<PostFeedRow> findFeedSlice(Pageable pageable);
+
+    @Query(FEED_SELECT + "WHERE " + VISIBLE + FEED_ORDER)
+    List<PostFeedRow> findFeedRows(Pageable pageable);
+
+    @Query(FEED_SELECT
+            + "WHERE " + VISIBLE + "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) "
+            + FEED_ORDER)
+    List<PostFeedRow> findFeedRowsAfter(@Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    @Query(FEED_SELECT + "WHERE p.id IN :ids AND " + VISIBLE)
+    List<PostFeedRow> findFeedRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Alternativa à busca textual quando o banco não é PostgreSQL
+    @Query("SELECT p.id FROM Post p "
+            + "WHERE (LOWER(p.title) LIKE :pattern OR LOWER(p.content) LIKE :pattern) "
+            + "AND (:categoryId IS NULL OR p.category.id = :categoryId) "
+            + "AND (:status IS NULL OR p.progress = :status) "
+            + "AND " + VISIBLE
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<Long> searchIdsLike(@Param("pattern") String pattern,
+                             @Param("categoryId") Long categoryId,
+                             @Param("status") String status,
+                             Pageable pageable);
+
+    // Carga do índice de busca em memória, em lotes por id; ocultas ficam fora do índice
+    String SEARCH_SELECT = "SELECT new com.corrigeaqui.dtos.PostSearchRow(p.id, p.title, p.content, c.id, p.progress) "
+            + "FROM Post p LEFT JOIN p.category c ";
+
+    @Query(SEARCH_SELECT + "WHERE p.id > :afterId AND " + VISIBLE + "ORDER BY p.id")
+    List<PostSearchRow> findSearchRows(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SEARCH_SELECT + "WHERE p.id IN :ids AND " + VISIBLE)
+    List<PostSearchRow> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id, i FROM Post p JOIN p.images i WHERE p.id IN :ids ORDER BY p.id, INDEX(i)")
+    List<Object[]> findImagesByPostIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.version FROM Post p WHERE p.id = :id")
+    Optional<Long> findVersion(@Param("id") Long id);
+
+    @Query("SELECT p.progress FROM Post p WHERE p.id = :id")
+    Optional<String> findProgress(@Param("id") Long id);
+
+    @Query("SELECT p.imageUrl FROM Post p WHERE p.id = :id")
+    Optional<String> findMainImageUrl(@Param("id") Long id);
+
+    // Imagens dos comentários da denúncia (removidos em cascata junto com ela), uma vez por comentário
+    @Query("SELECT DISTINCT c.id, i FROM Comment c JOIN c.images i WHERE c.post.id = :postId")
+    List<Object[]> findCommentImageUrls(@Param("postId") Long postId);
+
+    String MARKER_SELECT = "SELECT new com.corrigeaqui.dtos.MarkerRow("
+            + "p.id, p.latitude, p.longitude, p.title, p.content, p.progress, p.imageUrl, p.category.id) "
+            + "FROM Post p ";
+
+    @Query(MARKER_SELECT
+            + "WHERE p.latitude IS NOT NULL AND p.longitude IS NOT NULL AND " + VISIBLE
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<MarkerRow> findMarkers(Pageable pageable);
+
+    // Faixa em latitude/longitude atendida pelo índice idx_posts_lat_lng
+    @Query(MARKER_SELECT
+            + "WHERE p.latitude BETWEEN :minLat AND :maxLat AND p.longitude BETWEEN :minLng AND :maxLng "
+            + "AND " + VISIBLE
+            + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<MarkerRow> findMarkersInBox(@Param("minLat") double minLat,
+                                     @Param("minLng") double minLng,
+                                     @Param("maxLat") double maxLat,
+                                     @Param("maxLng") double maxLng,
+                                     Pageable pageable);
+
+    // Mesmos filtros dos marcadores, sem o limite: muda sempre que o resultado pode mudar
+    String MARKER_STAMP_SELECT = "SELECT new com.corrigeaqui.dtos.VersionStamp(COUNT(p), MAX(p.id), SUM(p.version)) "
+            + "FROM Post p ";
+
+    @Query(MARKER_STAMP_SELECT + "WHERE p.latitude IS NOT NULL AND p.longitude IS NOT NULL AND " + VISIBLE)
+    VersionStamp findMarkersStamp();
+
+    @Query(MARKER_STAMP_SELECT
+            + "WHERE p.latitude BETWEEN :minLat AND :maxLat AND p.longitude BETWEEN :minLng AND :maxLng "
+            + "AND " + VISIBLE)
+    VersionStamp findMarkersStampInBox(@Param("minLat") double minLat,
+                                       @Param("minLng") double minLng,
+                                       @Param("maxLat") double maxLat,
+                                       @Param("maxLng") double maxLng);
+
+    String GEO_STATE_SELECT = "SELECT new com.corrigeaqui.dtos.PostGeoState(p.latitude, p.longitude, c.id) "
+            + "FROM Post p LEFT JOIN p.category c ";
+
+    // Oculta = fora dos agregados do mapa, como se não existisse
+    @Query(GEO_STATE_SELECT + "WHERE p.id = :id AND " + VISIBLE)
+    Optional<PostGeoState> findGeoState(@Param("id") Long id);
+
+    @Query(GEO_STATE_SELECT + "WHERE p.latitude IS NOT NULL AND p.longitude IS NOT NULL AND " + VISIBLE + "ORDER BY p.id")
+    Slice<PostGeoState> findGeoStates(Pageable pageable);
+
+    @Query("SELECT p FROM Post p WHERE p.geohash IS NULL AND p.latitude IS NOT NULL AND p.longitude IS NOT NULL")
+    List<Post> findMissingGeohash(Pageable pageable);
+
+    // 1 só para quem efetivamente mudou o estado (chamadas concorrentes não repetem os efeitos)
+    @Modifying
+    @Query("UPDATE Post p SET p.hidden = :hidden WHERE p.id = :id AND p.hidden <> :hidden")
+    int updateHidden(@Param("id") Long id, @Param("hidden") boolean hidden);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.likeCount = p.likeCount + :delta WHERE p.id = :id")
+    int incrementLikeCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.commentCount = p.commentCount + :delta WHERE p.id = :id")
+    int incrementCommentCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Query("SELECT MAX(p.id) FROM Post p")
+    Optional<Long> findMaxId();
+
+    // Reconciliação por faixa de id (CounterReconciliationService): trava as linhas divergentes,
+    // pulando as que uma escrita em andamento segura; a recontagem vem depois, em outra instrução
+    @Query(value = "SELECT p.id FROM posts p WHERE p.id > :afterId AND p.id <= :toId "
+            + "AND p.like_count <> (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id) "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDriftedLikeCounts(@Param("afterId") long afterId, @Param("toId") long toId);
+
+    @Query(value = "SELECT p.id FROM posts p WHERE p.id > :afterId AND p.id <= :toId "
+            + "AND p.comment_count <> (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDriftedCommentCounts(@Param("afterId") long afterId, @Param("toId") long toId);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.likeCount = (SELECT COUNT(l) FROM Like l WHERE l.post = p) "
+            + "WHERE p.id IN :ids AND p.likeCount <> (SELECT COUNT(l) FROM Like l WHERE l.post = p)")
+    int reconcileLikeCounts(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.commentCount = (SELECT COUNT(c) FROM Comment c WHERE c.post = p) "
+            + "WHERE p.id IN :ids AND p.commentCount <> (SELECT COUNT(c) FROM Comment c WHERE c.post = p)")
+    int reconcileCommentCounts(@Param("ids") Collection<Long> ids);
 }
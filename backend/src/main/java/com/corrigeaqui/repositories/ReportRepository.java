@@ -1,16 +1,116 @@
-
 package com.corrigeaqui.repositories;
 
+import com.corrigeaqui.dtos.ReportQueueItem;
 import com.corrigeaqui.models.Report;
 import com.corrigeaqui.models.User;
 import com.corrigeaqui.models.enums.ReportStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ReportRepository extends JpaRepository<Report, Long> {
     List<Report> findByReporter(User reporter);
     List<Report> findByStatus(ReportStatus status);
+
+    // Paginação pelo índice (status, created_at)
+    Page<Report> findByStatus(ReportStatus status, Pageable pageable);
+
+    @Query("SELECT COUNT(r) FROM Report r WHERE r.post.id = :postId AND r.status = :status")
+    long countByPostAndStatus(@Param("postId") Long postId, @Param("status") ReportStatus status);
+
+    @Query("SELECT COUNT(r) FROM Report r WHERE r.comment.id = :commentId AND r.status = :status")
+    long countByCommentAndStatus(@Param("commentId") Long commentId, @Param("status") ReportStatus status);
+
+    // Nova denúncia do mesmo alvo: as pendentes sobem juntas na fila
+    @Modifying
+    @Query("UPDATE Report r SET r.priority = r.priority + :bump "
+            + "WHERE r.post.id = :postId AND r.status = :status AND r.id <> :exceptId")
+    int bumpPriorityForPost(@Param("postId") Long postId,
+                            @Param("status") ReportStatus status,
+                            @Param("bump") int bump,
+                            @Param("exceptId") Long exceptId);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.priority = r.priority + :bump "
+            + "WHERE r.comment.id = :commentId AND r.status = :status AND r.id <> :exceptId")
+    int bumpPriorityForComment(@Param("commentId") Long commentId,
+                               @Param("status") ReportStatus status,
+                               @Param("bump") int bump,
+                               @Param("exceptId") Long exceptId);
+
+    // Alvo escalado por volume de denúncias: todas as pendentes sobem, inclusive a mais recente
+    @Modifying
+    @Query("UPDATE Report r SET r.priority = r.priority + :bump WHERE r.post.id = :postId AND r.status = :status")
+    int escalatePost(@Param("postId") Long postId, @Param("status") ReportStatus status, @Param("bump") int bump);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.priority = r.priority + :bump WHERE r.comment.id = :commentId AND r.status = :status")
+    int escalateComment(@Param("commentId") Long commentId, @Param("status") ReportStatus status, @Param("bump") int bump);
+
+    // Uma linha por alvo, mais prioritário primeiro; denunciantes repetidos contam uma vez
+    @Query("SELECT new com.corrigeaqui.dtos.ReportQueueItem(p.id, c.id, COUNT(r), COUNT(DISTINCT u.id), "
+            + "MAX(r.priority), MIN(r.createdAt), MAX(r.createdAt)) "
+            + "FROM Report r LEFT JOIN r.post p LEFT JOIN r.comment c LEFT JOIN r.reporter u "
+            + "WHERE r.status = :status "
+            + "GROUP BY p.id, c.id "
+            + "ORDER BY MAX(r.priority) DESC, MIN(r.createdAt), p.id, c.id")
+    Slice<ReportQueueItem> findQueue(@Param("status") ReportStatus status, Pageable pageable);
+
+    // Próximas pendentes livres (ou com reivindicação vencida); linhas travadas por outro
+    // moderador são puladas. Precisa rodar na mesma transação que grava a reivindicação.
+    @Query(value = "SELECT id FROM reports WHERE status = 'PENDING' "
+            + "AND (claimed_at IS NULL OR claimed_at < :expiredBefore) "
+            + "ORDER BY priority DESC, created_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimable(@Param("expiredBefore") LocalDateTime expiredBefore, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.claimedBy = :moderatorId, r.claimedAt = :claimedAt WHERE r.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("moderatorId") Long moderatorId,
+              @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.claimedBy = NULL, r.claimedAt = NULL "
+            + "WHERE r.claimedBy = :moderatorId AND r.status = :status")
+    int releaseClaims(@Param("moderatorId") Long moderatorId, @Param("status") ReportStatus status);
+
+    @Query("SELECT r.id FROM Report r WHERE r.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Filtros nulos não restringem
+    @Query("SELECT r.id FROM Report r "
+            + "WHERE (:fromStatus IS NULL OR r.status = :fromStatus) "
+            + "AND (:postId IS NULL OR r.post.id = :postId) "
+            + "AND (:commentId IS NULL OR r.comment.id = :commentId) "
+            + "AND (:claimedBy IS NULL OR r.claimedBy = :claimedBy) "
+            + "ORDER BY r.id")
+    List<Long> findIdsMatching(@Param("fromStatus") ReportStatus fromStatus,
+                               @Param("postId") Long postId,
+                               @Param("commentId") Long commentId,
+                               @Param("claimedBy") Long claimedBy,
+                               Pageable limit);
+
+    // Uma instrução para o lote; campos nulos mantêm o valor atual
+    @Modifying
+    @Query("UPDATE Report r SET r.status = COALESCE(:status, r.status), "
+            + "r.resolution = COALESCE(:resolution, r.resolution), "
+            + "r.notes = COALESCE(:notes, r.notes) "
+            + "WHERE r.id IN :ids")
+    int bulkUpdate(@Param("ids") Collection<Long> ids,
+                   @Param("status") ReportStatus status,
+                   @Param("resolution") String resolution,
+                   @Param("notes") String notes);
+
+    @Query("SELECT r FROM Report r WHERE r.id IN :ids ORDER BY r.priority DESC, r.createdAt, r.id")
+    List<Report> findAllByIdOrdered(@Param("ids") Collection<Long> ids);
 }
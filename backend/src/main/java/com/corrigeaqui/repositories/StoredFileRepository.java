@@ -0,0 +1,52 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.models.StoredFile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+
+    @Query("SELECT f.path FROM StoredFile f WHERE f.sha256 = :sha256")
+    Optional<String> findPathBySha256(@Param("sha256") String sha256);
+
+    // Uma instrução: registra o conteúdo novo (sem referências) ou renova o created_at do
+    // existente, para a varredura de não anexados não apagá-lo antes de a URL ser gravada
+    @Modifying
+    @Query(value = "INSERT INTO stored_files (sha256, path, size, content_type, ref_count, created_at) "
+            + "VALUES (:sha256, :path, :size, :contentType, 0, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (sha256) DO UPDATE SET created_at = CURRENT_TIMESTAMP", nativeQuery = true)
+    int register(@Param("sha256") String sha256,
+                 @Param("path") String path,
+                 @Param("size") long size,
+                 @Param("contentType") String contentType);
+
+    // Uma referência por caminho; caminhos sem registro (externos, anteriores ao esquema) não mudam nada
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.refCount = f.refCount + 1 WHERE f.path IN :paths")
+    int attach(@Param("paths") Collection<String> paths);
+
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.refCount = CASE WHEN f.refCount > :count THEN f.refCount - :count ELSE 0 END "
+            + "WHERE f.path = :path AND f.refCount > 0")
+    int release(@Param("path") String path, @Param("count") long count);
+
+    // Enviado depois do corte ainda pode estar a caminho de ser anexado
+    @Modifying
+    @Query("DELETE FROM StoredFile f WHERE f.path = :path AND f.refCount <= 0 AND f.createdAt < :cutoff")
+    int deleteUnreferenced(@Param("path") String path, @Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT f FROM StoredFile f WHERE f.id > :afterId AND f.refCount <= 0 AND f.createdAt < :cutoff ORDER BY f.id")
+    List<StoredFile> findUnreferenced(@Param("afterId") Long afterId,
+                                      @Param("cutoff") LocalDateTime cutoff,
+                                      Pageable pageable);
+}
@@ -0,0 +1,32 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.models.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    // Só as que ainda barram algum token dentro da validade (idx_token_revocations_revoked_at)
+    @Query("SELECT r FROM TokenRevocation r WHERE r.revokedAt >= :cutoff")
+    List<TokenRevocation> findRevokedSince(@Param("cutoff") LocalDateTime cutoff);
+
+    // Trocas anteriores à tabela: updated_at do usuário é a melhor data que resta da revogação
+    @Modifying
+    @Query(value = "INSERT INTO token_revocations (user_id, min_version, revoked_at) "
+            + "SELECT u.id, u.token_version, u.updated_at FROM users u "
+            + "WHERE u.token_version > 0 AND u.updated_at >= :cutoff "
+            + "AND NOT EXISTS (SELECT 1 FROM token_revocations r WHERE r.user_id = u.id)", nativeQuery = true)
+    int seedFromUsers(@Param("cutoff") LocalDateTime cutoff);
+
+    // Tokens emitidos antes do corte já expiraram
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.revokedAt < :cutoff")
+    int deleteRevokedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -3,8 +3,11 @@ package com.corrigeaqui.repositories;
 
 import com.corrigeaqui.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +19,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     
     boolean existsByCpf(String cpf);
+
+    @Query("SELECT u.updatedAt FROM User u WHERE u.id = :id")
+    Optional<LocalDateTime> findUpdatedAt(@Param("id") Long id);
 }
@@ -0,0 +1,40 @@
+package com.corrigeaqui.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.springframework.core.io.Resource;
+
+// Onde ficam os arquivos enviados, endereçados por uma chave plana (o nome público em
+// /uploads/{chave}). A implementação é escolhida por storage.type: "local" (padrão,
+// LocalBlobStorage) ou "s3" (S3BlobStorage, também para MinIO e compatíveis).
+public interface BlobStorage {
+
+    // Temporário para montar o conteúdo antes do put; no mesmo volume quando isso torna o put uma troca atômica
+    Path createTempFile(String prefix) throws IOException;
+
+    // Grava o arquivo sob a chave, substituindo o anterior. O chamador continua dono de source
+    // e o apaga depois se ainda existir (a implementação local o move)
+    void put(String key, Path source, String contentType) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    // Conteúdo para leitura em streaming, com tamanho e data de modificação; vazio se a chave não existe
+    Optional<Resource> get(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Chaves são nomes simples: nada de separadores ou nomes que apontem para fora do armazenamento
+    static boolean isValidKey(String key) {
+        return key != null && !key.isEmpty() && !key.startsWith(".")
+                && key.indexOf('/') < 0 && key.indexOf('\\') < 0 && key.indexOf('\0') < 0;
+    }
+
+    static String requireValidKey(String key) {
+        if (!isValidKey(key)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return key;
+    }
+}
@@ -1,24 +1,38 @@
 package com.corrigeaqui.services;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import com.corrigeaqui.dtos.VersionStamp;
 import com.corrigeaqui.models.Category;
 import com.corrigeaqui.repositories.CategoryRepository;
 
 import lombok.RequiredArgsConstructor;
 
+// Categorias mudam raramente: leituras vêm do cache e escritas o atualizam/invalidam.
+// As instâncias em cache são compartilhadas; para alterar, use toBuilder() numa cópia.
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
+    public static final String CATEGORIES_CACHE = "categories";
+    public static final String CATEGORY_BY_ID_CACHE = "categoryById";
+
     private final CategoryRepository categoryRepository;
 
+    @Cacheable(CATEGORIES_CACHE)
     public List<Category> findAll() {
-        return categoryRepository.findAll();
+        return List.copyOf(categoryRepository.findAll());
     }
 
+    @Cacheable(cacheNames = CATEGORY_BY_ID_CACHE, unless = "#result == null")
     public Optional<Category> findById(Long id) {
         return categoryRepository.findById(id);
     }
@@ -27,15 +41,48 @@ public class CategoryService {
         return categoryRepository.findByName(name);
     }
 
+    @Caching(
+            put = @CachePut(cacheNames = CATEGORY_BY_ID_CACHE, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CATEGORIES_CACHE, allEntries = true))
     public Category create(Category category) {
         return categoryRepository.save(category);
     }
 
+    // Marcadores levam nome e cor da categoria
+    @Caching(
+            put = @CachePut(cacheNames = CATEGORY_BY_ID_CACHE, key = "#result.id"),
+            evict = {
+                    @CacheEvict(cacheNames = CATEGORIES_CACHE, allEntries = true),
+                    @CacheEvict(cacheNames = FeedCache.MARKERS_CACHE, allEntries = true)})
     public Category update(Category category) {
         return categoryRepository.save(category);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CATEGORY_BY_ID_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CATEGORIES_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = FeedCache.MARKERS_CACHE, allEntries = true)})
     public void delete(Long id) {
         categoryRepository.deleteById(id);
     }
+
+    // Resumo das versões de uma lista (normalmente a de findAll) para ETags, sem ir ao banco
+    public static VersionStamp versionStamp(List<Category> categories) {
+        long maxId = 0;
+        long versionSum = 0;
+        for (Category category : categories) {
+            maxId = Math.max(maxId, category.getId());
+            versionSum += category.getVersion() != null ? category.getVersion() : 0;
+        }
+        return new VersionStamp((long) categories.size(), maxId, versionSum);
+    }
+
+    // Mapa id -> categoria a partir de uma lista (normalmente a de findAll, já em cache)
+    public static Map<Long, Category> byId(List<Category> categories) {
+        Map<Long, Category> map = new HashMap<>();
+        for (Category category : categories) {
+            map.put(category.getId(), category);
+        }
+        return map;
+    }
 }
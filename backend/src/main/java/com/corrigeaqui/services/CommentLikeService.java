@@ -1,41 +1,60 @@
 package com.corrigeaqui.services;
 
 import com.corrigeaqui.models.Comment;
-import com.corrigeaqui.models.CommentLike;
-import com.corrigeaqui.models.User;
 import com.corrigeaqui.repositories.CommentLikeRepository;
+import com.corrigeaqui.repositories.CommentRepository;
+import com.corrigeaqui.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 public class CommentLikeService {
 
     private final CommentLikeRepository commentLikeRepository;
+    private final CommentRepository commentRepository;
+    private final UserRepository userRepository;
+    private final LikeBuffer likeBuffer;
+    private final OutboxService outboxService;
 
+    // true se a curtida foi criada, false se já existia
     @Transactional
-    public CommentLike likeComment(User user, Comment comment) {
-        if (commentLikeRepository.existsByUserAndComment(user, comment)) {
-            return null;
+    public boolean likeComment(Long userId, Long commentId) {
+        int inserted = commentLikeRepository.insertIfAbsent(userId, commentId);
+        if (inserted > 0) {
+            commentRepository.incrementLikeCount(commentId, inserted);
+            outboxService.record("comment", commentId, OutboxService.LIKES_CHANGED,
+                    OutboxService.fields("commentId", commentId, "userId", userId, "delta", inserted));
         }
-        CommentLike like = CommentLike.builder()
-                .user(user)
-                .comment(comment)
-                .build();
-        return commentLikeRepository.save(like);
+        return inserted > 0;
     }
 
     @Transactional
-    public void unlikeComment(User user, Comment comment) {
-        commentLikeRepository.deleteByUserAndComment(user, comment);
+    public boolean unlikeComment(Long userId, Long commentId) {
+        int removed = commentLikeRepository.deleteByUserAndComment(
+                userRepository.getReferenceById(userId), commentRepository.getReferenceById(commentId));
+        if (removed > 0) {
+            commentRepository.incrementLikeCount(commentId, -removed);
+            outboxService.record("comment", commentId, OutboxService.LIKES_CHANGED,
+                    OutboxService.fields("commentId", commentId, "userId", userId, "delta", -removed));
+        }
+        return removed > 0;
     }
 
     public long getLikeCount(Comment comment) {
-        return commentLikeRepository.countByComment(comment);
+        return comment.getLikeCount() != null ? comment.getLikeCount() : 0L;
     }
 
-    public boolean hasUserLiked(User user, Comment comment) {
-        return commentLikeRepository.existsByUserAndComment(user, comment);
+    // Ids (dentre os informados) que o usuário curtiu, em uma consulta
+    public Set<Long> findLikedCommentIds(Long userId, Collection<Long> commentIds) {
+        if (userId == null || commentIds.isEmpty()) {
+            return Set.of();
+        }
+        return likeBuffer.overlay(LikeBuffer.Target.COMMENT, userId, commentIds,
+                commentLikeRepository.findLikedCommentIds(userId, commentIds));
     }
 }
@@ -1,16 +1,32 @@
 package com.corrigeaqui.services;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.corrigeaqui.dtos.CommentDTO;
+import com.corrigeaqui.dtos.CommentRow;
+import com.corrigeaqui.dtos.CursorPage;
+import com.corrigeaqui.dtos.FeedEvent;
+import com.corrigeaqui.dtos.VersionStamp;
 import com.corrigeaqui.models.Comment;
-import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.User;
 import com.corrigeaqui.repositories.CommentRepository;
+import com.corrigeaqui.repositories.PostRepository;
+import com.corrigeaqui.utils.ETags;
+import com.corrigeaqui.utils.KeysetCursor;
 
 import lombok.RequiredArgsConstructor;
 
@@ -18,10 +34,40 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class CommentService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_REPLIES = 20;
+
     private final CommentRepository commentRepository;
+    private final PostRepository postRepository;
+    private final CommentLikeService commentLikeService;
+    private final SearchIndexService searchIndexService;
+    private final ImageStorageService imageStorageService;
+    private final FeedCache feedCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
 
+    @Transactional
     public Comment create(Comment comment) {
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        imageStorageService.attach(imageUrls(saved));
+        if (saved.getPost() != null) {
+            postRepository.incrementCommentCount(saved.getPost().getId(), 1);
+        }
+        if (saved.getParent() != null) {
+            commentRepository.incrementReplyCount(saved.getParent().getId(), 1);
+        }
+        searchIndexService.onCommentSaved(saved);
+        feedCache.evictFeed();
+        eventPublisher.publishEvent(FeedEvent.commentCreated(
+                saved.getPost() != null ? saved.getPost().getId() : null,
+                saved.getId(),
+                saved.getParent() != null ? saved.getParent().getId() : null));
+        outboxService.record("comment", saved.getId(), OutboxService.COMMENT_CREATED, OutboxService.fields(
+                "id", saved.getId(),
+                "postId", saved.getPost() != null ? saved.getPost().getId() : null,
+                "parentId", saved.getParent() != null ? saved.getParent().getId() : null,
+                "authorId", saved.getAuthor() != null ? saved.getAuthor().getId() : null));
+        return saved;
     }
 
     public Optional<Comment> findById(Long id) {
@@ -37,23 +83,205 @@ public class CommentService {
         return commentRepository.findAll(pageable).getContent();
     }
 
+    @Transactional
     public Comment update(Comment comment) {
-        return commentRepository.save(comment);
+        Set<String> previousImages = new HashSet<>();
+        if (comment.getId() != null) {
+            for (Object[] tuple : commentRepository.findImagesByCommentIds(List.of(comment.getId()))) {
+                previousImages.add((String) tuple[1]);
+            }
+        }
+        Comment saved = commentRepository.save(comment);
+        searchIndexService.onCommentSaved(saved);
+        outboxService.record("comment", saved.getId(), OutboxService.COMMENT_UPDATED,
+                OutboxService.fields("id", saved.getId()));
+        imageStorageService.replace(previousImages, imageUrls(saved));
+        return saved;
     }
 
+    // Respostas são removidas em cascata; níveis mais profundos ficam para a reconciliação
+    @Transactional
     public void delete(Long id) {
-        commentRepository.deleteById(id);
+        Comment comment = commentRepository.findById(id).orElse(null);
+        if (comment == null) {
+            return;
+        }
+        long removed = 1 + commentRepository.countByParent(comment);
+        if (comment.getPost() != null) {
+            postRepository.incrementCommentCount(comment.getPost().getId(), -removed);
+        }
+        if (comment.getParent() != null) {
+            commentRepository.incrementReplyCount(comment.getParent().getId(), -1);
+        }
+        // Uma referência por entidade: a do comentário e a de cada resposta
+        List<String> images = new ArrayList<>(imageUrls(comment));
+        for (Object[] tuple : commentRepository.findReplyImageUrls(id)) {
+            images.add((String) tuple[1]);
+        }
+        commentRepository.delete(comment);
+        searchIndexService.onCommentDeleted(id);
+        feedCache.evictFeed();
+        outboxService.record("comment", id, OutboxService.COMMENT_DELETED, OutboxService.fields(
+                "id", id,
+                "postId", comment.getPost() != null ? comment.getPost().getId() : null,
+                "replies", removed - 1));
+        imageStorageService.release(images);
     }
 
     public List<Comment> findByAuthor(User author) {
         return commentRepository.findByAuthor(author);
     }
 
-    public List<Comment> findByPost(Post post) {
-        return commentRepository.findByPostWithAuthor(post);
+    // Árvore paginada: página de comentários de primeiro nível + as primeiras `replies`
+    // respostas de cada um, em número constante de consultas
+    @Transactional(readOnly = true)
+    public CursorPage<CommentDTO> findThreads(Long postId, String cursor, int size, int replies, Long userId) {
+        size = clamp(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<CommentRow> roots;
+        if (cursor == null || cursor.isBlank()) {
+            roots = commentRepository.findTopLevelRows(postId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            roots = commentRepository.findTopLevelRowsAfter(postId, after.createdAt(), after.id(), limit);
+        }
+        return toCursorPage(roots, size, replies, userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CommentDTO> findThreads(Long postId, int page, int size, int replies, Long userId) {
+        List<CommentRow> roots = commentRepository.findTopLevelRows(postId, PageRequest.of(page, clamp(size)));
+        return toTree(roots, replies, userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CommentDTO> findRecent(int page, int size, Long userId) {
+        return toTree(commentRepository.findRecentRows(PageRequest.of(page, clamp(size))), 0, userId);
+    }
+
+    // Continuação das respostas de um comentário, em ordem cronológica
+    @Transactional(readOnly = true)
+    public CursorPage<CommentDTO> findReplies(Long parentId, String cursor, int size, int replies, Long userId) {
+        size = clamp(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<CommentRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = commentRepository.findReplyRows(parentId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = commentRepository.findReplyRowsAfter(parentId, after.createdAt(), after.id(), limit);
+        }
+        return toCursorPage(rows, size, replies, userId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<CommentDTO> findThread(Long id, int replies, Long userId) {
+        List<CommentRow> rows = commentRepository.findRowsByIds(List.of(id));
+        return toTree(rows, replies, userId).stream().findFirst();
+    }
+
+    // ETag de findThread sem montar a árvore: versões e contadores do comentário e das respostas,
+    // autores e, com userId, quais dos comentários exibidos o usuário curtiu (inclusive no buffer)
+    @Transactional(readOnly = true)
+    public Optional<String> threadETag(Long id, int replies, Long userId) {
+        VersionStamp stamp = commentRepository.findThreadStamp(id);
+        if (stamp.isEmpty()) {
+            return Optional.empty();
+        }
+        if (userId == null) {
+            return Optional.of(ETags.weak("comment", id, stamp.tag()));
+        }
+        List<Long> ids = new ArrayList<>();
+        ids.add(id);
+        int replyLimit = Math.max(0, Math.min(replies, MAX_REPLIES));
+        if (replyLimit > 0) {
+            ids.addAll(commentRepository.findFirstReplyIds(List.of(id), replyLimit));
+        }
+        String liked = new TreeSet<>(commentLikeService.findLikedCommentIds(userId, ids)).stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining("."));
+        return Optional.of(ETags.weak("comment", id, stamp.tag(), "u" + userId, liked));
+    }
+
+    private CursorPage<CommentDTO> toCursorPage(List<CommentRow> rows, int size, int replies, Long userId) {
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            CommentRow last = rows.get(size - 1);
+            next = new KeysetCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CursorPage<>(toTree(rows, replies, userId), next);
+    }
+
+    private List<CommentDTO> toTree(List<CommentRow> roots, int replies, Long userId) {
+        if (roots.isEmpty()) {
+            return List.of();
+        }
+        int replyLimit = Math.max(0, Math.min(replies, MAX_REPLIES));
+
+        List<CommentRow> replyRows = List.of();
+        List<Long> parentIds = roots.stream()
+                .filter(r -> r.replyCount() != null && r.replyCount() > 0)
+                .map(CommentRow::id)
+                .toList();
+        if (replyLimit > 0 && !parentIds.isEmpty()) {
+            List<Long> replyIds = commentRepository.findFirstReplyIds(parentIds, replyLimit);
+            if (!replyIds.isEmpty()) {
+                replyRows = commentRepository.findRowsByIds(replyIds);
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(roots.size() + replyRows.size());
+        roots.forEach(r -> ids.add(r.id()));
+        replyRows.forEach(r -> ids.add(r.id()));
+
+        Map<Long, List<String>> imagesByComment = new HashMap<>();
+        for (Object[] tuple : commentRepository.findImagesByCommentIds(ids)) {
+            imagesByComment.computeIfAbsent((Long) tuple[0], k -> new ArrayList<>()).add((String) tuple[1]);
+        }
+        Set<Long> liked = commentLikeService.findLikedCommentIds(userId, ids);
+
+        Map<Long, List<CommentDTO>> repliesByParent = new HashMap<>();
+        for (CommentRow reply : replyRows) {
+            repliesByParent.computeIfAbsent(reply.parentId(), k -> new ArrayList<>())
+                    .add(toDTO(reply, imagesByComment, liked, null));
+        }
+
+        return roots.stream()
+                .map(root -> toDTO(root, imagesByComment, liked, repliesByParent.get(root.id())))
+                .toList();
+    }
+
+    private CommentDTO toDTO(CommentRow row, Map<Long, List<String>> imagesByComment, Set<Long> liked,
+                             List<CommentDTO> replies) {
+        String repliesCursor = null;
+        if (replies != null && !replies.isEmpty() && row.replyCount() != null && row.replyCount() > replies.size()) {
+            CommentDTO last = replies.get(replies.size() - 1);
+            repliesCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return CommentDTO.builder()
+                .id(row.id())
+                .content(row.content())
+                .authorId(row.authorId())
+                .authorName(row.authorId() != null && row.authorName() != null ? row.authorName() : "Unknown")
+                .authorAvatar(row.authorAvatar() != null ? row.authorAvatar() : "/uploads/default-avatar.png")
+                .postId(row.postId())
+                .parentId(row.parentId())
+                .createdAt(row.createdAt())
+                .images(imagesByComment.getOrDefault(row.id(), List.of()))
+                .likeCount(row.likeCount() != null ? row.likeCount() : 0L)
+                .liked(liked.contains(row.id()))
+                .replyCount(row.replyCount() != null ? row.replyCount() : 0L)
+                .replies(replies)
+                .repliesCursor(repliesCursor)
+                .build();
+    }
+
+    private static Set<String> imageUrls(Comment comment) {
+        return comment.getImages() != null ? new HashSet<>(comment.getImages()) : new HashSet<>();
     }
 
-    public List<Comment> findByPost(Post post, int page, int size) {
-        return commentRepository.findByPostWithAuthor(post);
+    private static int clamp(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
     }
 }
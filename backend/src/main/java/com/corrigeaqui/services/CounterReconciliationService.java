@@ -0,0 +1,74 @@
+package com.corrigeaqui.services;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.corrigeaqui.repositories.CommentRepository;
+import com.corrigeaqui.repositories.PostRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Corrige periodicamente a divergência entre os contadores e as tabelas de likes/comentários.
+// Trabalha em faixas de id, cada uma na própria transação curta: trava as linhas divergentes
+// (SKIP LOCKED pula as que uma curtida ou comentário em andamento segura) e só então reconta.
+// Com a linha travada antes da contagem, um incremento que ainda não foi confirmado espera e
+// soma por cima do valor recontado, em vez de ser sobrescrito por ele.
+@Slf4j
+@Service
+public class CounterReconciliationService {
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public CounterReconciliationService(PostRepository postRepository,
+                                        CommentRepository commentRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${counters.reconcile.batch-size:1000}") int batchSize) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${counters.reconcile.initial-delay:PT1M}",
+               fixedDelayString = "${counters.reconcile.interval:PT10M}")
+    public void reconcile() {
+        long maxPostId = postRepository.findMaxId().orElse(0L);
+        long maxCommentId = commentRepository.findMaxId().orElse(0L);
+        int postLikes = reconcile(maxPostId, postRepository::lockDriftedLikeCounts, postRepository::reconcileLikeCounts);
+        int postComments = reconcile(maxPostId, postRepository::lockDriftedCommentCounts, postRepository::reconcileCommentCounts);
+        int commentLikes = reconcile(maxCommentId, commentRepository::lockDriftedLikeCounts, commentRepository::reconcileLikeCounts);
+        int commentReplies = reconcile(maxCommentId, commentRepository::lockDriftedReplyCounts, commentRepository::reconcileReplyCounts);
+
+        if (postLikes + postComments + commentLikes + commentReplies > 0) {
+            log.info("Contadores reconciliados: posts.like_count={}, posts.comment_count={}, comments.like_count={}, comments.reply_count={}",
+                    postLikes, postComments, commentLikes, commentReplies);
+        }
+    }
+
+    @FunctionalInterface
+    interface RangeLock {
+        List<Long> lock(long afterId, long toId);
+    }
+
+    private int reconcile(long maxId, RangeLock lock, Function<List<Long>, Integer> update) {
+        int total = 0;
+        for (long afterId = 0; afterId < maxId; afterId += batchSize) {
+            long from = afterId;
+            Integer updated = transactionTemplate.execute(status -> {
+                List<Long> ids = lock.lock(from, from + batchSize);
+                return ids.isEmpty() ? 0 : update.apply(ids);
+            });
+            total += updated != null ? updated : 0;
+        }
+        return total;
+    }
+}
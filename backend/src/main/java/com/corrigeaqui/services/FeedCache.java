@@ -0,0 +1,76 @@
+package com.corrigeaqui.services;
+
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.corrigeaqui.dtos.CursorPage;
+import com.corrigeaqui.dtos.FrontPostDTO;
+import com.corrigeaqui.dtos.MapViewportDTO;
+import com.corrigeaqui.utils.AfterCommit;
+import com.corrigeaqui.utils.BoundingBox;
+
+// Páginas do feed (sem dados do usuário) e marcadores, compartilhados entre instâncias
+// pelo cache em dois níveis. O resumo de versões que vira o ETag dos marcadores fica no
+// mesmo cache da área e sai junto com ela. Escritas em denúncias, comentários e curtidas invalidam após
+// o commit; curtidas do buffer write-behind invalidam uma vez por descarga.
+@Component
+public class FeedCache {
+
+    public static final String FEED_CACHE = "feed";
+    public static final String MARKERS_CACHE = "markers";
+
+    private final Cache feed;
+    private final Cache markers;
+
+    public FeedCache(CacheManager cacheManager) {
+        this.feed = cacheManager.getCache(FEED_CACHE);
+        this.markers = cacheManager.getCache(MARKERS_CACHE);
+    }
+
+    public CursorPage<FrontPostDTO> feedPage(String cursor, int size, Supplier<CursorPage<FrontPostDTO>> loader) {
+        String key = (cursor == null || cursor.isBlank() ? "first" : cursor) + ":" + size;
+        return load(feed, key, loader);
+    }
+
+    public MapViewportDTO markers(BoundingBox box, int maxResults, Supplier<MapViewportDTO> loader) {
+        return load(markers, markersKey(box, maxResults), loader);
+    }
+
+    public String markersStamp(BoundingBox box, int maxResults, Supplier<String> loader) {
+        return load(markers, "stamp:" + markersKey(box, maxResults), loader);
+    }
+
+    private static String markersKey(BoundingBox box, int maxResults) {
+        return (box == null
+                ? "all"
+                : box.minLat() + "," + box.minLng() + "," + box.maxLat() + "," + box.maxLng()) + ":" + maxResults;
+    }
+
+    // Erros do loader (ex.: cursor inválido) chegam ao chamador como se não houvesse cache
+    private static <T> T load(Cache cache, String key, Supplier<T> loader) {
+        try {
+            return cache.get(key, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Contadores de curtidas/comentários mudaram: só o feed (marcadores não os exibem)
+    public void evictFeed() {
+        AfterCommit.run(feed::clear);
+    }
+
+    // Denúncia criada, alterada ou removida
+    public void evictPostChanges() {
+        AfterCommit.run(() -> {
+            feed.clear();
+            markers.clear();
+        });
+    }
+}
@@ -0,0 +1,222 @@
+package com.corrigeaqui.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.corrigeaqui.dtos.FeedEvent;
+import com.corrigeaqui.exceptions.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Repassa os FeedEvent publicados pelos serviços (após o commit) aos clientes de
+// GET /posts/stream. Quem publica só enfileira: cada assinante tem fila própria e limitada,
+// esvaziada por um thread virtual, então um cliente lento não atrasa os outros nem a
+// transação. Curtidas e status da mesma denúncia são aglutinados na fila; se ela estourar,
+// as pendências são descartadas e o cliente recebe "resync" para recarregar a página.
+// O ":ping" periódico mantém a conexão aberta em proxies e revela clientes que sumiram.
+@Slf4j
+@Service
+public class FeedStreamService {
+
+    public static final String RESYNC = "resync";
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxSubscribers;
+    private final int queueCapacity;
+    private final Duration timeout;
+    private final Duration reconnect;
+
+    private final Counter published;
+    private final Counter overflows;
+
+    public FeedStreamService(@Value("${feed.stream.max-subscribers:5000}") int maxSubscribers,
+                             @Value("${feed.stream.queue-capacity:256}") int queueCapacity,
+                             @Value("${feed.stream.timeout:PT30M}") Duration timeout,
+                             @Value("${feed.stream.reconnect:PT3S}") Duration reconnect,
+                             MeterRegistry meterRegistry) {
+        this.maxSubscribers = maxSubscribers;
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+        this.reconnect = reconnect;
+        Gauge.builder("feed.stream.subscribers", subscribers, Set::size)
+                .description("Conexões abertas em /posts/stream")
+                .register(meterRegistry);
+        this.published = Counter.builder("feed.stream.events")
+                .description("Eventos recebidos para repasse")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("feed.stream.overflows")
+                .description("Filas de assinantes descartadas por estouro (cliente recebe resync)")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManyRequestsException("Too many live feed connections", reconnect);
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // Primeira escrita já envia os headers e informa o intervalo de reconexão
+        subscriber.ping();
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFeedEvent(FeedEvent event) {
+        published.increment();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${feed.stream.heartbeat:PT15S}",
+               fixedDelayString = "${feed.stream.heartbeat:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.ping();
+        }
+    }
+
+    // Curtidas e status da mesma denúncia ocupam uma posição só na fila
+    private static String coalesceKey(FeedEvent event, long sequence) {
+        if (FeedEvent.POST_LIKED.equals(event.type()) || FeedEvent.POST_STATUS.equals(event.type())) {
+            return event.type() + ":" + event.postId();
+        }
+        return "#" + sequence;
+    }
+
+    private static FeedEvent merge(FeedEvent previous, FeedEvent next) {
+        if (FeedEvent.POST_LIKED.equals(next.type())) {
+            return FeedEvent.postLiked(next.postId(), previous.delta() + next.delta());
+        }
+        return next;
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        sender.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Map<String, FeedEvent> pending = new LinkedHashMap<>();
+        private long sequence;
+        private boolean overflowed;
+        private boolean ping;
+        private boolean sending;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(FeedEvent event) {
+            if (closed || overflowed) {
+                return;
+            }
+            String key = coalesceKey(event, sequence++);
+            FeedEvent previous = pending.get(key);
+            if (previous != null) {
+                pending.put(key, merge(previous, event));
+            } else if (pending.size() >= queueCapacity) {
+                pending.clear();
+                overflowed = true;
+                overflows.increment();
+            } else {
+                pending.put(key, event);
+            }
+            schedule();
+        }
+
+        synchronized void ping() {
+            if (closed) {
+                return;
+            }
+            ping = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (!sending) {
+                sending = true;
+                sender.execute(this::drain);
+            }
+        }
+
+        // Um envio por vez por assinante; o que chega durante o envio vai na próxima volta
+        private void drain() {
+            while (true) {
+                List<SseEmitter.SseEventBuilder> batch = take();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                try {
+                    for (SseEmitter.SseEventBuilder event : batch) {
+                        emitter.send(event);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado: o contêiner avisa o emitter, aqui só para de enviar
+                    close();
+                    log.debug("Assinante do feed desconectado: {}", e.getMessage());
+                    return;
+                }
+            }
+        }
+
+        private synchronized List<SseEmitter.SseEventBuilder> take() {
+            List<SseEmitter.SseEventBuilder> batch = new ArrayList<>();
+            if (!closed) {
+                if (overflowed) {
+                    batch.add(SseEmitter.event().name(RESYNC).data("{}", MediaType.APPLICATION_JSON));
+                    overflowed = false;
+                }
+                for (FeedEvent event : pending.values()) {
+                    batch.add(SseEmitter.event().name(event.type()).data(event, MediaType.APPLICATION_JSON));
+                }
+                pending.clear();
+                if (ping && batch.isEmpty()) {
+                    batch.add(SseEmitter.event().comment("ping").reconnectTime(reconnect.toMillis()));
+                }
+                ping = false;
+            }
+            if (batch.isEmpty()) {
+                sending = false;
+            }
+            return batch;
+        }
+
+        private synchronized void close() {
+            closed = true;
+            sending = false;
+            pending.clear();
+            subscribers.remove(this);
+        }
+    }
+}
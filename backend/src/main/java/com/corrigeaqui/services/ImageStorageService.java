@@ -0,0 +1,227 @@
+package com.corrigeaqui.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.corrigeaqui.models.StoredFile;
+import com.corrigeaqui.repositories.StoredFileRepository;
+import com.corrigeaqui.utils.AfterCommit;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Armazenamento de imagens enviadas, endereçado por conteúdo. O upload é lido uma única
+// vez, passando pelo SHA-256 a caminho de um arquivo temporário; se o hash já existe, o
+// arquivo gravado é reaproveitado. O upload em si não é referência: denúncias, comentários e
+// avatares somam (attach) e soltam (release) uma referência por URL distinta ao gravar e ao
+// remover, na transação da própria entidade. O arquivo sai quando não resta referência;
+// uploads nunca anexados saem na varredura depois de uploads.unattached-ttl. URLs sem
+// registro (externas, ou nomes com UUID anteriores a este esquema) são ignoradas. Os bytes
+// ficam no BlobStorage configurado; o hash é calculado sobre um temporário dele. As versões
+// reduzidas saem do evento file.stored, gravado no outbox junto com o registro.
+@Slf4j
+@Service
+public class ImageStorageService {
+
+    public static final String URL_PREFIX = "/uploads/";
+
+    private static final List<String> ALLOWED_EXTENSIONS = List.of("jpg", "jpeg", "png", "gif");
+    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int SWEEP_BATCH = 100;
+
+    private final StoredFileRepository storedFileRepository;
+    private final ImageVariantService imageVariantService;
+    private final BlobStorage blobStorage;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration unattachedTtl;
+
+    public ImageStorageService(StoredFileRepository storedFileRepository,
+                               ImageVariantService imageVariantService,
+                               BlobStorage blobStorage,
+                               OutboxService outboxService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${uploads.unattached-ttl:P1D}") Duration unattachedTtl) {
+        this.storedFileRepository = storedFileRepository;
+        this.imageVariantService = imageVariantService;
+        this.blobStorage = blobStorage;
+        this.outboxService = outboxService;
+        this.unattachedTtl = unattachedTtl;
+        // Própria transação: também roda em afterCommit, quando a transação do chamador já terminou
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Valida e grava (ou reaproveita) a imagem, ainda sem referência. Devolve a URL pública
+    public String store(MultipartFile file) throws IOException {
+        String extension = validate(file);
+        Path tmp = blobStorage.createTempFile("upload-");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            // O registro vem antes do arquivo: uma remoção concorrente do mesmo conteúdo segura
+            // a linha até apagar o arquivo, e aqui o temporário ainda existe para recriá-lo
+            String path = transactionTemplate.execute(status -> {
+                storedFileRepository.register(hash, hash + "." + extension, size, file.getContentType());
+                String stored = storedFileRepository.findPathBySha256(hash).orElseThrow();
+                outboxService.record("file", stored, OutboxService.FILE_STORED,
+                        OutboxService.fields("size", size, "contentType", file.getContentType()));
+                return stored;
+            });
+            // Upload simultâneo do mesmo conteúdo pode gravar duas vezes; os bytes são os mesmos
+            if (!blobStorage.exists(path)) {
+                blobStorage.put(path, tmp, file.getContentType());
+            }
+            return URL_PREFIX + path;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Soma uma referência a cada URL na transação corrente (URLs repetidas contam uma vez)
+    public void attach(Collection<String> urls) {
+        List<String> paths = paths(urls).distinct().toList();
+        if (!paths.isEmpty()) {
+            storedFileRepository.attach(paths);
+        }
+    }
+
+    // URLs de uma entidade antes e depois de gravada: anexa as novas e solta as que saíram
+    public void replace(Collection<String> before, Collection<String> after) {
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(after);
+        attach(added);
+        release(removed);
+    }
+
+    // Solta uma referência por ocorrência depois do commit da transação corrente: quem remove
+    // várias entidades de uma vez passa a URL uma vez por entidade. O arquivo é apagado
+    // quando não resta nenhuma referência.
+    public void release(Collection<String> urls) {
+        Map<String, Long> counts = paths(urls).collect(Collectors.groupingBy(path -> path, Collectors.counting()));
+        if (counts.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> counts.forEach(this::releaseQuietly));
+    }
+
+    // Uploads que ninguém anexou dentro do prazo
+    @Scheduled(initialDelayString = "${uploads.unattached-sweep-interval:PT1H}",
+               fixedDelayString = "${uploads.unattached-sweep-interval:PT1H}")
+    public void sweepUnattached() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(unattachedTtl);
+        long afterId = 0;
+        int deleted = 0;
+        List<StoredFile> batch;
+        do {
+            batch = storedFileRepository.findUnreferenced(afterId, cutoff, PageRequest.of(0, SWEEP_BATCH));
+            for (StoredFile file : batch) {
+                afterId = file.getId();
+                deleted += deleteQuietly(file.getPath(), cutoff) ? 1 : 0;
+            }
+        } while (batch.size() == SWEEP_BATCH);
+        if (deleted > 0) {
+            log.info("{} uploads não anexados removidos", deleted);
+        }
+    }
+
+    private static Stream<String> paths(Collection<String> urls) {
+        return urls.stream()
+                .filter(Objects::nonNull)
+                .filter(url -> url.startsWith(URL_PREFIX))
+                .map(url -> url.substring(URL_PREFIX.length()));
+    }
+
+    private void releaseQuietly(String path, long count) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (storedFileRepository.release(path, count) == 0) {
+                    return;
+                }
+                deleteUnreferenced(path, LocalDateTime.now().minus(unattachedTtl));
+            });
+        } catch (RuntimeException e) {
+            log.warn("Falha ao liberar o arquivo {}: {}", path, e.getMessage());
+        }
+    }
+
+    private boolean deleteQuietly(String path, LocalDateTime cutoff) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> deleteUnreferenced(path, cutoff)));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao remover o upload não anexado {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    // A linha continua bloqueada até o commit, então um upload concorrente do mesmo conteúdo
+    // espera e encontra o arquivo já removido; enviado depois do corte fica para a varredura
+    private boolean deleteUnreferenced(String path, LocalDateTime cutoff) {
+        if (storedFileRepository.deleteUnreferenced(path, cutoff) == 0) {
+            return false;
+        }
+        try {
+            blobStorage.delete(path);
+            imageVariantService.deleteVariants(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    private static String validate(MultipartFile file) {
+        String originalFilename = file.getOriginalFilename();
+        if (originalFilename == null || originalFilename.isEmpty()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        if (file.getSize() > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size exceeds maximum limit of 10MB");
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1).toLowerCase();
+        if (!ALLOWED_EXTENSIONS.contains(extension)) {
+            throw new IllegalArgumentException("Only image files (jpg, jpeg, png, gif) are allowed");
+        }
+        return extension;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.corrigeaqui.services;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import com.corrigeaqui.dtos.ImageVariantsDTO;
+import com.corrigeaqui.models.OutboxEvent;
+import com.corrigeaqui.repositories.StoredFileRepository;
+
+// Versões reduzidas (JPEG) das imagens enviadas, em larguras fixas, para feed e mapa.
+// São geradas fora da requisição, a partir do evento file.stored do outbox (gravado junto
+// com o registro do arquivo), então sobrevivem a uma queda; até lá o cliente recebe o
+// original. O nome de cada versão deriva do hash do original ({sha256}_w{largura}.jpg),
+// então os DTOs montam as URLs sem consultar o banco.
+@Service
+public class ImageVariantService implements OutboxConsumer {
+
+    public static final int SMALL = 320;
+    public static final int MEDIUM = 640;
+    public static final int LARGE = 1280;
+    private static final List<Integer> WIDTHS = List.of(LARGE, MEDIUM, SMALL);
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("([0-9a-f]{64})\\.[A-Za-z0-9]+");
+    private static final Pattern VARIANT = Pattern.compile("([0-9a-f]{64})_w(\\d+)\\.jpg");
+
+    private final StoredFileRepository storedFileRepository;
+    private final BlobStorage blobStorage;
+
+    public ImageVariantService(StoredFileRepository storedFileRepository, BlobStorage blobStorage) {
+        this.storedFileRepository = storedFileRepository;
+        this.blobStorage = blobStorage;
+    }
+
+    @Override
+    public boolean supports(String eventType) {
+        return OutboxService.FILE_STORED.equals(eventType);
+    }
+
+    // aggregateId = chave do arquivo no BlobStorage
+    @Override
+    public void handle(OutboxEvent event) {
+        String path = event.getAggregateId();
+        if (!CONTENT_ADDRESSED.matcher(path).matches()) {
+            return;
+        }
+        try {
+            generate(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // URLs das versões de uma imagem; fora do armazenamento por conteúdo, todas apontam para o original
+    public ImageVariantsDTO variants(String url) {
+        if (url == null) {
+            return null;
+        }
+        String name = url.startsWith(ImageStorageService.URL_PREFIX)
+                ? url.substring(ImageStorageService.URL_PREFIX.length())
+                : null;
+        Matcher m = name != null ? CONTENT_ADDRESSED.matcher(name) : null;
+        if (m == null || !m.matches()) {
+            return new ImageVariantsDTO(url, url, url, url);
+        }
+        String hash = m.group(1);
+        return new ImageVariantsDTO(url, variantUrl(hash, SMALL), variantUrl(hash, MEDIUM), variantUrl(hash, LARGE));
+    }
+
+    public List<ImageVariantsDTO> variants(List<String> urls) {
+        return urls.stream().map(this::variants).toList();
+    }
+
+    // Versão pedida que (ainda) não existe: caminho do original para servir no lugar
+    public Optional<String> originalOf(String filename) {
+        Matcher m = VARIANT.matcher(filename);
+        if (!m.matches()) {
+            return Optional.empty();
+        }
+        return storedFileRepository.findPathBySha256(m.group(1));
+    }
+
+    // Arquivos das versões de um original removido
+    public void deleteVariants(String path) throws IOException {
+        Matcher m = CONTENT_ADDRESSED.matcher(path);
+        if (!m.matches()) {
+            return;
+        }
+        for (int width : WIDTHS) {
+            blobStorage.delete(variantName(m.group(1), width));
+        }
+    }
+
+    private void generate(String path) throws IOException {
+        String hash = path.substring(0, 64);
+        // Evento repetido (upload do mesmo conteúdo, nova entrega): versões já existem
+        if (blobStorage.exists(variantName(hash, SMALL))) {
+            return;
+        }
+        // O evento é confirmado antes de os bytes chegarem ao BlobStorage: falha e tenta de novo,
+        // a menos que o arquivo já tenha sido liberado (sem registro, não há o que gerar)
+        Optional<Resource> source = blobStorage.get(path);
+        if (source.isEmpty()) {
+            if (storedFileRepository.findPathBySha256(hash).isEmpty()) {
+                return;
+            }
+            throw new IllegalStateException("Stored file not found yet: " + path);
+        }
+        BufferedImage image;
+        try (InputStream in = source.get().getInputStream()) {
+            image = decode(in);
+        }
+        if (image == null) {
+            return;
+        }
+        // Da maior para a menor, cada versão reduz a anterior; larguras acima do original são puladas
+        BufferedImage current = image;
+        for (int width : WIDTHS) {
+            if (width >= image.getWidth()) {
+                continue;
+            }
+            current = scale(current, width);
+            write(current, variantName(hash, width));
+        }
+    }
+
+    // Decodifica com subamostragem: uma foto de 6000px não precisa ser lida inteira para virar 1280px
+    private static BufferedImage decode(InputStream source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / LARGE);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            // Fundo branco para PNG/GIF com transparência (JPEG não tem canal alfa)
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private void write(BufferedImage image, String key) throws IOException {
+        Path tmp = blobStorage.createTempFile("variant-");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            blobStorage.put(key, tmp, "image/jpeg");
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String variantName(String hash, int width) {
+        return hash + "_w" + width + ".jpg";
+    }
+
+    private static String variantUrl(String hash, int width) {
+        return ImageStorageService.URL_PREFIX + variantName(hash, width);
+    }
+}
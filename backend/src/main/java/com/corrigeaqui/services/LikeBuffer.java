@@ -0,0 +1,291 @@
+package com.corrigeaqui.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.corrigeaqui.dtos.FeedEvent;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Ingestão write-behind de curtidas (likes.write-behind.enabled). Cada evento grava a
+// intenção mais recente por (tipo, usuário, alvo) em mapas concorrentes particionados;
+// um único thread descarrega tudo em lotes JDBC por intervalo ou por tamanho, ajustando
+// o contador de cada alvo uma vez por lote. Pendências são descarregadas no shutdown;
+// uma queda abrupta perde no máximo um intervalo (o job de reconciliação corrige contadores).
+@Slf4j
+@Component
+public class LikeBuffer {
+
+    public enum Target {
+        POST("INSERT INTO likes (user_id, post_id) VALUES (?, ?) ON CONFLICT (user_id, post_id) DO NOTHING",
+                "DELETE FROM likes WHERE user_id = ? AND post_id = ?",
+                "UPDATE posts SET like_count = like_count + ? WHERE id = ?"),
+        COMMENT("INSERT INTO comment_likes (user_id, comment_id) VALUES (?, ?) ON CONFLICT (user_id, comment_id) DO NOTHING",
+                "DELETE FROM comment_likes WHERE user_id = ? AND comment_id = ?",
+                "UPDATE comments SET like_count = like_count + ? WHERE id = ?");
+
+        private final String insertSql;
+        private final String deleteSql;
+        private final String counterSql;
+
+        Target(String insertSql, String deleteSql, String counterSql) {
+            this.insertSql = insertSql;
+            this.deleteSql = deleteSql;
+            this.counterSql = counterSql;
+        }
+    }
+
+    private record Key(Target target, long userId, long targetId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
+    private final FeedCache feedCache;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int maxPending;
+    private final Map<Key, Boolean>[] stripes;
+    // Já retirados das partições mas ainda não confirmados no banco (mantém read-your-writes)
+    private final Map<Key, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService flusher;
+
+    @SuppressWarnings("unchecked")
+    public LikeBuffer(JdbcTemplate jdbcTemplate,
+                      TransactionTemplate transactionTemplate,
+                      ApplicationEventPublisher eventPublisher,
+                      OutboxService outboxService,
+                      FeedCache feedCache,
+                      @Value("${likes.write-behind.enabled:false}") boolean enabled,
+                      @Value("${likes.write-behind.flush-interval:PT1S}") Duration flushInterval,
+                      @Value("${likes.write-behind.max-pending:5000}") int maxPending,
+                      @Value("${likes.write-behind.stripes:16}") int stripeCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.outboxService = outboxService;
+        this.feedCache = feedCache;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.maxPending = maxPending;
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Map[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "like-buffer-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        log.info("Curtidas em modo write-behind: intervalo {}, limite {} pendentes", flushInterval, maxPending);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Registra a intenção (true = curtir, false = descurtir); a última vence
+    public void record(Target target, Long userId, Long targetId, boolean liked) {
+        Key key = new Key(target, userId, targetId);
+        Map<Key, Boolean> stripe = stripeFor(key);
+        stripe.put(key, liked);
+        if (stripe.size() * (long) stripes.length >= maxPending && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Encerrando: a descarga final do stop() grava o evento
+            }
+        }
+    }
+
+    // Intenção ainda não gravada no banco para (usuário, alvo), ou null se não houver
+    public Boolean pending(Target target, Long userId, Long targetId) {
+        if (!enabled || userId == null) {
+            return null;
+        }
+        Key key = new Key(target, userId, targetId);
+        Boolean value = stripeFor(key).get(key);
+        return value != null ? value : inFlight.get(key);
+    }
+
+    // Aplica as intenções pendentes do usuário ao conjunto lido do banco
+    public Set<Long> overlay(Target target, Long userId, Collection<Long> targetIds, Set<Long> likedInDb) {
+        if (!enabled || userId == null) {
+            return likedInDb;
+        }
+        Set<Long> result = new HashSet<>(likedInDb);
+        for (Long id : targetIds) {
+            Boolean pending = pending(target, userId, id);
+            if (Boolean.TRUE.equals(pending)) {
+                result.add(id);
+            } else if (Boolean.FALSE.equals(pending)) {
+                result.remove(id);
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao descarregar curtidas pendentes: {}", e.getMessage());
+        }
+    }
+
+    synchronized void flush() {
+        Map<Key, Boolean> drained = new HashMap<>();
+        for (Map<Key, Boolean> stripe : stripes) {
+            for (Map.Entry<Key, Boolean> entry : stripe.entrySet()) {
+                inFlight.put(entry.getKey(), entry.getValue());
+                if (stripe.remove(entry.getKey(), entry.getValue())) {
+                    drained.put(entry.getKey(), entry.getValue());
+                } else {
+                    inFlight.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (Target target : Target.values()) {
+                List<Map.Entry<Key, Boolean>> batch = drained.entrySet().stream()
+                        .filter(e -> e.getKey().target() == target)
+                        .toList();
+                if (!batch.isEmpty()) {
+                    write(target, batch);
+                }
+            }
+        } catch (DataAccessException e) {
+            // Banco indisponível: devolve o que não foi sobrescrito por intenções mais novas
+            drained.forEach((key, value) -> stripeFor(key).putIfAbsent(key, value));
+            throw e;
+        } finally {
+            drained.forEach(inFlight::remove);
+        }
+    }
+
+    private void write(Target target, List<Map.Entry<Key, Boolean>> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Map.Entry<Key, Boolean> entry : batch) {
+            Object[] args = {entry.getKey().userId(), entry.getKey().targetId()};
+            (entry.getValue() ? inserts : deletes).add(args);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, Long> deltas = new HashMap<>();
+                accumulate(deltas, inserts, jdbcTemplate.batchUpdate(target.insertSql, inserts), 1);
+                accumulate(deltas, deletes, jdbcTemplate.batchUpdate(target.deleteSql, deletes), -1);
+                applyCounters(target, deltas);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Algum usuário/alvo não existe: grava linha a linha e descarta as inválidas
+            writeOneByOne(target, inserts, deletes);
+        }
+    }
+
+    // Uma transação por linha: a curtida, o contador e o evento do outbox continuam atômicos
+    private void writeOneByOne(Target target, List<Object[]> inserts, List<Object[]> deletes) {
+        for (Object[] args : inserts) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyCounters(target,
+                        Map.of((Long) args[1], (long) jdbcTemplate.update(target.insertSql, args))));
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Curtida descartada ({} usuário {} alvo {}): {}", target, args[0], args[1], e.getMessage());
+            }
+        }
+        for (Object[] args : deletes) {
+            transactionTemplate.executeWithoutResult(status -> applyCounters(target,
+                    Map.of((Long) args[1], -(long) jdbcTemplate.update(target.deleteSql, args))));
+        }
+    }
+
+    // Contagens SUCCESS_NO_INFO (driver sem detalhe por linha) ficam para a reconciliação
+    private static void accumulate(Map<Long, Long> deltas, List<Object[]> rows, int[] counts, int sign) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                deltas.merge((Long) rows.get(i)[1], (long) sign * counts[i], Long::sum);
+            }
+        }
+    }
+
+    private void applyCounters(Target target, Map<Long, Long> deltas) {
+        List<Object[]> updates = new ArrayList<>();
+        deltas.forEach((targetId, delta) -> {
+            if (delta != 0) {
+                updates.add(new Object[] {delta, targetId});
+            }
+        });
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(target.counterSql, updates);
+        // Uma variação líquida por alvo e lote (entregue após o commit do lote)
+        String aggregate = target == Target.POST ? "post" : "comment";
+        for (Object[] update : updates) {
+            outboxService.record(aggregate, update[1], OutboxService.LIKES_CHANGED,
+                    OutboxService.fields(aggregate + "Id", update[1], "delta", update[0]));
+            if (target == Target.POST) {
+                eventPublisher.publishEvent(FeedEvent.postLiked((Long) update[1], (Long) update[0]));
+            }
+        }
+        // Quem curtiu deixa de estar pendente: a página em cache precisa trazer o contador novo
+        if (target == Target.POST) {
+            feedCache.evictFeed();
+        }
+    }
+
+    private Map<Key, Boolean> stripeFor(Key key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+}
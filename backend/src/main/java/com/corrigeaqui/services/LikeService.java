@@ -1,33 +1,71 @@
 package com.corrigeaqui.services;
 
-import com.corrigeaqui.models.Like;
+import com.corrigeaqui.dtos.FeedEvent;
 import com.corrigeaqui.models.Post;
-import com.corrigeaqui.models.User;
 import com.corrigeaqui.repositories.LikeRepository;
+import com.corrigeaqui.repositories.PostRepository;
+import com.corrigeaqui.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Set;
+
+// Curtir/descurtir sem carregar entidades: uma instrução idempotente e o contador só
+// é ajustado quando o estado muda. Usuário ou denúncia inexistente resulta em
+// DataIntegrityViolationException (chave estrangeira) no insert.
 @Service
 @RequiredArgsConstructor
 public class LikeService {
 
     private final LikeRepository likeRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final LikeBuffer likeBuffer;
+    private final FeedCache feedCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
 
-    public Like likePost(User user, Post post) {
-        if (likeRepository.existsByUserAndPost(user, post)) {
-            return null; 
+    // true se a curtida foi criada, false se já existia
+    @Transactional
+    public boolean likePost(Long userId, Long postId) {
+        int inserted = likeRepository.insertIfAbsent(userId, postId);
+        if (inserted > 0) {
+            postRepository.incrementLikeCount(postId, inserted);
+            feedCache.evictFeed();
+            eventPublisher.publishEvent(FeedEvent.postLiked(postId, inserted));
+            outboxService.record("post", postId, OutboxService.LIKES_CHANGED,
+                    OutboxService.fields("postId", postId, "userId", userId, "delta", inserted));
         }
-        Like like = Like.builder().user(user).post(post).build();
-        return likeRepository.save(like);
+        return inserted > 0;
     }
 
+    // true se havia curtida a remover
     @Transactional
-    public void unlikePost(User user, Post post) {
-        likeRepository.deleteByUserAndPost(user, post);
+    public boolean unlikePost(Long userId, Long postId) {
+        int removed = likeRepository.deleteByUserAndPost(
+                userRepository.getReferenceById(userId), postRepository.getReferenceById(postId));
+        if (removed > 0) {
+            postRepository.incrementLikeCount(postId, -removed);
+            feedCache.evictFeed();
+            eventPublisher.publishEvent(FeedEvent.postLiked(postId, -removed));
+            outboxService.record("post", postId, OutboxService.LIKES_CHANGED,
+                    OutboxService.fields("postId", postId, "userId", userId, "delta", -removed));
+        }
+        return removed > 0;
+    }
+
+    public Set<Long> findLikedPostIds(Long userId, Collection<Long> postIds) {
+        if (userId == null || postIds.isEmpty()) {
+            return Set.of();
+        }
+        return likeBuffer.overlay(LikeBuffer.Target.POST, userId, postIds,
+                likeRepository.findLikedPostIds(userId, postIds));
     }
 
     public long countLikes(Post post) {
-        return likeRepository.countByPost(post);
+        return post.getLikeCount() != null ? post.getLikeCount() : 0L;
     }
-}
\ No newline at end of file
+}
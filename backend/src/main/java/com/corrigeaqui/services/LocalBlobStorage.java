@@ -0,0 +1,108 @@
+package com.corrigeaqui.services;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+// Armazenamento em disco sob upload.path, em dois níveis de subdiretório pelo prefixo do
+// hash (ab/cd/abcd...jpg) para que nenhum diretório acumule centenas de milhares de
+// entradas. Chaves que não começam com hash usam o SHA-256 do próprio nome. Arquivos da
+// estrutura antiga, todos na raiz, continuam sendo lidos e removidos.
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStorage implements BlobStorage {
+
+    private static final Pattern HASH_PREFIX = Pattern.compile("^[0-9a-f]{4}.*");
+    private static final String TMP_DIR = ".tmp";
+
+    private final Path root;
+
+    public LocalBlobStorage(@Value("${upload.path:uploads}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public Path createTempFile(String prefix) throws IOException {
+        Path dir = root.resolve(TMP_DIR);
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, prefix, ".tmp");
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = shardedPath(BlobStorage.requireValidKey(key));
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // source fora do volume (não veio de createTempFile): copia para um temporário ao lado e troca
+            Path tmp = createTempFile("put-");
+            try {
+                Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return locate(key).isPresent();
+    }
+
+    @Override
+    public Optional<Resource> get(String key) {
+        return locate(key).map(FileSystemResource::new);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (!BlobStorage.isValidKey(key)) {
+            return;
+        }
+        Files.deleteIfExists(shardedPath(key));
+        Files.deleteIfExists(root.resolve(key));
+    }
+
+    private Optional<Path> locate(String key) {
+        if (!BlobStorage.isValidKey(key)) {
+            return Optional.empty();
+        }
+        Path sharded = shardedPath(key);
+        if (Files.isRegularFile(sharded)) {
+            return Optional.of(sharded);
+        }
+        Path legacy = root.resolve(key);
+        return Files.isRegularFile(legacy) ? Optional.of(legacy) : Optional.empty();
+    }
+
+    Path shardedPath(String key) {
+        String prefix = HASH_PREFIX.matcher(key).matches() ? key : sha256(key);
+        return root.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(key);
+    }
+
+    private static String sha256(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.corrigeaqui.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.corrigeaqui.dtos.MapMarkerDTO;
+import com.corrigeaqui.dtos.MapViewportDTO;
+import com.corrigeaqui.dtos.MarkerRow;
+import com.corrigeaqui.dtos.VersionStamp;
+import com.corrigeaqui.models.Category;
+import com.corrigeaqui.models.Post;
+import com.corrigeaqui.repositories.PostRepository;
+import com.corrigeaqui.utils.BoundingBox;
+import com.corrigeaqui.utils.ETags;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class MapMarkerService {
+
+    private static final String DEFAULT_CATEGORY = "Outros";
+    private static final String DEFAULT_COLOR = "#6b7280";
+
+    private final PostRepository postRepository;
+    private final MarkerClusterService markerClusterService;
+    private final CategoryService categoryService;
+    private final ImageVariantService imageVariantService;
+    private final FeedCache feedCache;
+
+    @Value("${markers.max-results:1000}")
+    private int maxResults;
+
+    @Value("${markers.cluster-below-zoom:15}")
+    private int clusterBelowZoom;
+
+    // Marcadores individuais, limitados a markers.max-results (truncated indica corte)
+    @Transactional(readOnly = true)
+    public MapViewportDTO findMarkers(BoundingBox box) {
+        return feedCache.markers(box, maxResults, () -> loadMarkers(box));
+    }
+
+    private MapViewportDTO loadMarkers(BoundingBox box) {
+        PageRequest limit = PageRequest.of(0, maxResults + 1);
+        List<MarkerRow> rows = box == null
+                ? postRepository.findMarkers(limit)
+                : postRepository.findMarkersInBox(box.minLat(), box.minLng(), box.maxLat(), box.maxLng(), limit);
+
+        boolean truncated = rows.size() > maxResults;
+        if (truncated) {
+            rows = rows.subList(0, maxResults);
+        }
+        return new MapViewportDTO(toMarkers(rows), List.of(), truncated);
+    }
+
+    // ETag de findMarkers: agregado das denúncias da mesma área (sem o limite), guardado ao
+    // lado dos marcadores para não varrer a tabela a cada GET, e das categorias (em cache)
+    @Transactional(readOnly = true)
+    public String markersETag(BoundingBox box) {
+        String posts = feedCache.markersStamp(box, maxResults, () -> (box == null
+                ? postRepository.findMarkersStamp()
+                : postRepository.findMarkersStampInBox(box.minLat(), box.minLng(), box.maxLat(), box.maxLng())).tag());
+        VersionStamp categories = CategoryService.versionStamp(categoryService.findAll());
+        return ETags.weak("markers", maxResults, posts, categories.tag());
+    }
+
+    // Em zoom baixo devolve os agregados por célula geohash; em zoom alto, marcadores
+    @Transactional(readOnly = true)
+    public MapViewportDTO findViewport(BoundingBox box, int zoom) {
+        if (zoom >= clusterBelowZoom) {
+            return findMarkers(box);
+        }
+        MarkerClusterService.ClusterResult result = markerClusterService.findClusters(box, zoom);
+        return new MapViewportDTO(List.of(), result.clusters(), result.truncated());
+    }
+
+    private List<MapMarkerDTO> toMarkers(List<MarkerRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = rows.stream().map(MarkerRow::id).toList();
+        Map<Long, List<String>> imagesByPost = new HashMap<>();
+        for (Object[] tuple : postRepository.findImagesByPostIds(ids)) {
+            imagesByPost.computeIfAbsent((Long) tuple[0], k -> new ArrayList<>()).add((String) tuple[1]);
+        }
+        Map<Long, Category> categories = CategoryService.byId(categoryService.findAll());
+
+        return rows.stream().map(r -> {
+            List<String> images = imagesByPost.getOrDefault(r.id(), List.of());
+            if (images.isEmpty() && r.imageUrl() != null) {
+                images = List.of(r.imageUrl());
+            }
+            Category category = r.categoryId() != null ? categories.get(r.categoryId()) : null;
+            return new MapMarkerDTO(
+                    r.id(),
+                    r.latitude(),
+                    r.longitude(),
+                    category != null ? category.getName() : DEFAULT_CATEGORY,
+                    category != null ? category.getColor() : DEFAULT_COLOR,
+                    r.title(),
+                    r.content(),
+                    r.progress() != null ? r.progress() : "Em Revisão",
+                    images,
+                    imageVariantService.variants(images));
+        }).toList();
+    }
+
+    @Transactional
+    public int backfillGeohashes(int batchSize) {
+        List<Post> batch = postRepository.findMissingGeohash(PageRequest.of(0, batchSize));
+        for (Post post : batch) {
+            post.updateGeohash();
+        }
+        postRepository.saveAll(batch);
+        return batch.size();
+    }
+}
@@ -0,0 +1,205 @@
+package com.corrigeaqui.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.corrigeaqui.dtos.MarkerClusterDTO;
+import com.corrigeaqui.dtos.PostGeoState;
+import com.corrigeaqui.models.Category;
+import com.corrigeaqui.models.MarkerCell;
+import com.corrigeaqui.repositories.MarkerCellRepository;
+import com.corrigeaqui.repositories.PostRepository;
+import com.corrigeaqui.utils.BoundingBox;
+import com.corrigeaqui.utils.GeoHash;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Agregados por célula geohash mantidos incrementalmente: o custo do mapa em zoom baixo
+// depende do número de células visíveis, não do total de denúncias
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarkerClusterService {
+
+    public static final int MIN_PRECISION = 1;
+    public static final int MAX_PRECISION = 6;
+
+    private static final long NO_CATEGORY = 0L;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final String DEFAULT_CATEGORY = "Outros";
+    private static final String DEFAULT_COLOR = "#6b7280";
+    // Advisory lock da reconstrução no PostgreSQL, o mesmo em todas as instâncias
+    private static final long REBUILD_LOCK_KEY = 0x6d61726b65724cL;
+
+    private final MarkerCellRepository markerCellRepository;
+    private final PostRepository postRepository;
+    private final CategoryService categoryService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${markers.max-results:1000}")
+    private int maxResults;
+
+    // Aplica a diferença entre o estado anterior e o novo de uma denúncia
+    @Transactional
+    public void onPostChanged(PostGeoState before, PostGeoState after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null && before.hasCoordinates()) {
+            apply(before, -1);
+        }
+        if (after != null && after.hasCoordinates()) {
+            apply(after, 1);
+        }
+    }
+
+    private void apply(PostGeoState state, long delta) {
+        long categoryId = state.categoryId() != null ? state.categoryId() : NO_CATEGORY;
+        for (int precision = MIN_PRECISION; precision <= MAX_PRECISION; precision++) {
+            String cell = GeoHash.encode(state.latitude(), state.longitude(), precision);
+            double[] b = GeoHash.bounds(cell);
+            markerCellRepository.upsert(precision, cell, categoryId, delta,
+                    state.latitude() * delta, state.longitude() * delta,
+                    (b[0] + b[2]) / 2, (b[1] + b[3]) / 2);
+            if (delta < 0) {
+                markerCellRepository.deleteIfEmpty(precision, cell, categoryId);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public ClusterResult findClusters(BoundingBox box, int zoom) {
+        int precision = Math.min(GeoHash.precisionForZoom(zoom), MAX_PRECISION);
+
+        // Células parcialmente visíveis têm o centro fora da área: expande meia célula
+        int latBits = 5 * precision / 2;
+        double halfHeight = 90.0 / (1L << latBits);
+        double halfWidth = 180.0 / (1L << (5 * precision - latBits));
+        List<MarkerCell> rows = markerCellRepository.findInBox(precision,
+                box.minLat() - halfHeight, box.minLng() - halfWidth,
+                box.maxLat() + halfHeight, box.maxLng() + halfWidth);
+
+        Map<String, ClusterAccumulator> cells = new LinkedHashMap<>();
+        for (MarkerCell row : rows) {
+            cells.computeIfAbsent(row.getCell(), k -> new ClusterAccumulator()).add(row);
+        }
+
+        Map<Long, Category> categories = CategoryService.byId(categoryService.findAll());
+
+        List<MarkerClusterDTO> clusters = new ArrayList<>(cells.size());
+        cells.forEach((cell, acc) -> {
+            Category category = categories.get(acc.dominantCategoryId);
+            clusters.add(new MarkerClusterDTO(
+                    cell,
+                    acc.sumLat / acc.count,
+                    acc.sumLng / acc.count,
+                    acc.count,
+                    category != null ? category.getName() : DEFAULT_CATEGORY,
+                    category != null ? category.getColor() : DEFAULT_COLOR));
+        });
+
+        boolean truncated = clusters.size() > maxResults;
+        if (truncated) {
+            clusters.sort((a, b) -> Long.compare(b.count(), a.count()));
+            return new ClusterResult(new ArrayList<>(clusters.subList(0, maxResults)), true);
+        }
+        return new ClusterResult(clusters, false);
+    }
+
+    // Recalcula todos os agregados a partir das denúncias (tabela vazia ou divergente)
+    @Transactional
+    public long rebuild() {
+        Map<String, MarkerCell> cells = new HashMap<>();
+        long total = 0;
+        Pageable page = PageRequest.of(0, REBUILD_BATCH_SIZE);
+        Slice<PostGeoState> batch;
+        do {
+            batch = postRepository.findGeoStates(page);
+            for (PostGeoState state : batch) {
+                long categoryId = state.categoryId() != null ? state.categoryId() : NO_CATEGORY;
+                for (int precision = MIN_PRECISION; precision <= MAX_PRECISION; precision++) {
+                    String cell = GeoHash.encode(state.latitude(), state.longitude(), precision);
+                    MarkerCell agg = cells.computeIfAbsent(precision + ":" + cell + ":" + categoryId, k -> newCell(cell, categoryId));
+                    agg.setPostCount(agg.getPostCount() + 1);
+                    agg.setSumLat(agg.getSumLat() + state.latitude());
+                    agg.setSumLng(agg.getSumLng() + state.longitude());
+                }
+                total++;
+            }
+            page = batch.nextPageable();
+        } while (batch.hasNext());
+
+        markerCellRepository.deleteAllInBatch();
+        markerCellRepository.saveAll(cells.values());
+        log.info("Agregados do mapa recalculados: {} denúncias em {} células", total, cells.size());
+        return total;
+    }
+
+    // Réplicas subindo juntas com a tabela vazia: só quem obtém o lock (liberado no commit)
+    // reconstrói; as outras seguem, e os agregados chegam com o commit dela
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (isPostgres() && !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, REBUILD_LOCK_KEY))) {
+            log.info("Agregados do mapa sendo montados por outra instância");
+            return;
+        }
+        if (markerCellRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    private static MarkerCell newCell(String cell, long categoryId) {
+        double[] b = GeoHash.bounds(cell);
+        return MarkerCell.builder()
+                .cellPrecision(cell.length())
+                .cell(cell)
+                .categoryId(categoryId)
+                .postCount(0L)
+                .sumLat(0.0)
+                .sumLng(0.0)
+                .centerLat((b[0] + b[2]) / 2)
+                .centerLng((b[1] + b[3]) / 2)
+                .build();
+    }
+
+    public record ClusterResult(List<MarkerClusterDTO> clusters, boolean truncated) {
+    }
+
+    private static final class ClusterAccumulator {
+        private long count;
+        private double sumLat;
+        private double sumLng;
+        private long dominantCategoryId = NO_CATEGORY;
+        private long dominantCount;
+
+        void add(MarkerCell row) {
+            count += row.getPostCount();
+            sumLat += row.getSumLat();
+            sumLng += row.getSumLng();
+            if (row.getPostCount() > dominantCount) {
+                dominantCount = row.getPostCount();
+                dominantCategoryId = row.getCategoryId();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.corrigeaqui.services;
+
+import com.corrigeaqui.models.OutboxEvent;
+
+// Consumidor dos eventos do outbox, chamado pelo OutboxRelay fora da requisição e sem
+// transação nem conexão presa (abra a própria transação se precisar). Exceção = nova tentativa
+// mais tarde. Precisa ser idempotente: uma queda entre o consumo e a remoção da linha, ou a
+// falha de outro consumidor do mesmo evento, faz o evento ser entregue de novo. Eventos do
+// mesmo agregado chegam em ordem e um de cada vez; um evento descartado após max-attempts
+// libera os seguintes.
+public interface OutboxConsumer {
+
+    boolean supports(String eventType);
+
+    void handle(OutboxEvent event);
+}
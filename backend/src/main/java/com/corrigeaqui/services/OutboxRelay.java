@@ -0,0 +1,149 @@
+package com.corrigeaqui.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.corrigeaqui.models.OutboxEvent;
+import com.corrigeaqui.repositories.OutboxEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// Entrega os eventos do outbox aos OutboxConsumer. Cada lote é lido em ordem de id com
+// FOR UPDATE SKIP LOCKED e reservado numa transação curta (available_at avança até o fim de
+// outbox.relay.lease), então várias instâncias dividem o trabalho sem entregar o mesmo evento
+// duas vezes ao mesmo tempo. A entrega roda sem transação nem conexão presa; cada evento
+// entregue é apagado, ou reagendado se falhar, na própria transação curta. Se a instância
+// cair no meio, a reserva vence e o evento volta a ser entregue. O lote só traz o evento
+// pendente mais antigo de cada agregado, então os seguintes esperam que ele seja entregue
+// (nesta ou em outra instância) ou, se falhar, a nova tentativa (backoff exponencial): a ordem
+// por agregado vale entre lotes e entre instâncias. Após max-attempts a linha fica parada
+// para inspeção e deixa de segurar o agregado.
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxConsumer> consumers;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration lease;
+
+    private final Counter delivered;
+    private final Counter failures;
+    private final Counter dead;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       List<OutboxConsumer> consumers,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.backoff:PT5S}") Duration backoff,
+                       @Value("${outbox.relay.lease:PT5M}") Duration lease) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.consumers = consumers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.lease = lease;
+        this.delivered = Counter.builder("outbox.delivered")
+                .description("Eventos do outbox entregues")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.failures")
+                .description("Entregas do outbox que falharam (serão tentadas de novo)")
+                .register(meterRegistry);
+        this.dead = Counter.builder("outbox.dead")
+                .description("Eventos do outbox que esgotaram as tentativas")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${outbox.relay.poll-interval:PT1S}",
+               fixedDelayString = "${outbox.relay.poll-interval:PT1S}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Lote cheio: provavelmente há mais, segue sem esperar o próximo ciclo
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao processar o outbox: {}", e.getMessage());
+        }
+    }
+
+    int relayBatch() {
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(lease);
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            List<OutboxEvent> locked = outboxEventRepository.lockBatch(LocalDateTime.now(), maxAttempts, batchSize);
+            if (!locked.isEmpty()) {
+                outboxEventRepository.lease(locked.stream().map(OutboxEvent::getId).toList(), leaseUntil);
+            }
+            return locked;
+        });
+        if (batch == null) {
+            return 0;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            // Reserva vencida: outra instância pode já ter pegado o restante do lote
+            if (LocalDateTime.now().isAfter(leaseUntil)) {
+                log.warn("Reserva do lote do outbox venceu com {} eventos por entregar", batch.size() - i);
+                break;
+            }
+            OutboxEvent event = batch.get(i);
+            try {
+                dispatch(event);
+            } catch (RuntimeException e) {
+                retryLater(event, e);
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteAllByIdInBatch(List.of(event.getId())));
+            delivered.increment();
+        }
+        return batch.size();
+    }
+
+    private void dispatch(OutboxEvent event) {
+        for (OutboxConsumer consumer : consumers) {
+            if (consumer.supports(event.getEventType())) {
+                consumer.handle(event);
+            }
+        }
+    }
+
+    private void retryLater(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        long factor = 1L << Math.min(attempts - 1, 10);
+        LocalDateTime retryAt = LocalDateTime.now().plus(backoff.multipliedBy(factor));
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        String message = error.length() > 1000 ? error.substring(0, 1000) : error;
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.reschedule(event.getId(), attempts, retryAt, message));
+        failures.increment();
+        if (attempts >= maxAttempts) {
+            dead.increment();
+            log.error("Evento {} do outbox ({} {}) descartado após {} tentativas: {}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), attempts, message);
+        } else {
+            log.warn("Evento {} do outbox ({} {}) falhou, nova tentativa em {}: {}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), retryAt, message);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.corrigeaqui.services;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.corrigeaqui.models.OutboxEvent;
+import com.corrigeaqui.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+// Grava eventos de domínio na transação corrente: o evento existe se e somente se a
+// alteração foi confirmada. A entrega é do OutboxRelay.
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String POST_CREATED = "post.created";
+    public static final String POST_UPDATED = "post.updated";
+    public static final String POST_DELETED = "post.deleted";
+    public static final String POST_HIDDEN = "post.hidden";
+    public static final String POST_UNHIDDEN = "post.unhidden";
+    public static final String COMMENT_CREATED = "comment.created";
+    public static final String COMMENT_UPDATED = "comment.updated";
+    public static final String COMMENT_DELETED = "comment.deleted";
+    public static final String COMMENT_HIDDEN = "comment.hidden";
+    public static final String COMMENT_UNHIDDEN = "comment.unhidden";
+    public static final String LIKES_CHANGED = "likes.changed";
+    public static final String REPORT_CREATED = "report.created";
+    public static final String REPORT_UPDATED = "report.updated";
+    public static final String REPORT_DELETED = "report.deleted";
+    public static final String REPORTS_BULK_UPDATED = "reports.bulk_updated";
+    public static final String REPORTS_ESCALATED = "reports.escalated";
+    public static final String FILE_STORED = "file.stored";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    // Sem transação ativa abre uma só para o evento
+    @Transactional
+    public void record(String aggregateType, Object aggregateId, String eventType, Map<String, Object> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable: " + eventType, e);
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(String.valueOf(aggregateId))
+                .eventType(eventType)
+                .payload(json)
+                .availableAt(LocalDateTime.now())
+                .build());
+    }
+
+    // Pares chave/valor em ordem; valores nulos ficam de fora
+    public static Map<String, Object> fields(Object... keyValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            if (keyValues[i + 1] != null) {
+                map.put((String) keyValues[i], keyValues[i + 1]);
+            }
+        }
+        return map;
+    }
+}
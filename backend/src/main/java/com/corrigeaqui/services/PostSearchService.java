@@ -0,0 +1,114 @@
+package com.corrigeaqui.services;
+
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.corrigeaqui.repositories.PostRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Busca textual em título e conteúdo. No PostgreSQL usa a coluna gerada search_vector
+// (tsvector com stemming em português, atualizada pelo próprio banco a cada escrita) e
+// índice GIN, ordenando por relevância; em outros bancos cai para LIKE por data.
+// Com search.engine=memory o esquema não é alterado e a busca vai para o SearchIndexService.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostSearchService {
+
+    private static final String TS_CONFIG = "portuguese";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final PostRepository postRepository;
+    private final SearchIndexService searchIndexService;
+
+    private volatile boolean fullTextEnabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (searchIndexService.isEnabled()) {
+            log.info("Busca textual pelo índice em memória");
+            return;
+        }
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                log.info("Busca textual sem índice ({}): usando LIKE", product);
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE posts ADD COLUMN IF NOT EXISTS search_vector tsvector "
+                    + "GENERATED ALWAYS AS ("
+                    + "setweight(to_tsvector('" + TS_CONFIG + "', coalesce(title, '')), 'A') || "
+                    + "setweight(to_tsvector('" + TS_CONFIG + "', coalesce(content, '')), 'B')) STORED");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_posts_search_vector ON posts USING GIN (search_vector)");
+            fullTextEnabled = true;
+        } catch (DataAccessException | MetaDataAccessException e) {
+            log.warn("Não foi possível preparar a busca textual, usando LIKE: {}", e.getMessage());
+        }
+    }
+
+    // Ids das denúncias encontradas, em ordem de relevância (ou data no modo LIKE)
+    public Slice<Long> searchIds(String query, Long categoryId, String status, Pageable pageable) {
+        String q = query != null ? query.trim() : "";
+        if (status != null && status.isBlank()) {
+            status = null;
+        }
+        if (q.isEmpty()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        if (searchIndexService.isReady()) {
+            int offset = (int) pageable.getOffset();
+            List<Long> ids = searchIndexService.search(q, categoryId, status, offset + pageable.getPageSize() + 1);
+            return page(ids.subList(Math.min(offset, ids.size()), ids.size()), pageable);
+        }
+        if (!fullTextEnabled) {
+            return postRepository.searchIdsLike("%" + q.toLowerCase() + "%", categoryId, status, pageable);
+        }
+
+        return page(fullText(q, categoryId, status, pageable), pageable);
+    }
+
+    // ids traz até um item além da página, que só indica se há próxima
+    private static Slice<Long> page(List<Long> ids, Pageable pageable) {
+        boolean hasNext = ids.size() > pageable.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(ids, pageable, hasNext);
+    }
+
+    private List<Long> fullText(String q, Long categoryId, String status, Pageable pageable) {
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT p.id FROM posts p, websearch_to_tsquery('").append(TS_CONFIG).append("', :q) query ")
+                .append("WHERE p.search_vector @@ query AND p.hidden = false ");
+        MapSqlParameterSource params = new MapSqlParameterSource("q", q);
+        if (categoryId != null) {
+            sql.append("AND p.category_id = :categoryId ");
+            params.addValue("categoryId", categoryId);
+        }
+        if (status != null) {
+            sql.append("AND p.progress = :status ");
+            params.addValue("status", status);
+        }
+        sql.append("ORDER BY ts_rank_cd(p.search_vector, query) DESC, p.id DESC LIMIT :limit OFFSET :offset");
+        params.addValue("limit", pageable.getPageSize() + 1);
+        params.addValue("offset", pageable.getOffset());
+        return namedJdbcTemplate.queryForList(sql.toString(), params, Long.class);
+    }
+}
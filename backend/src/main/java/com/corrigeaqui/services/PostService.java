@@ -1,45 +1,276 @@
 package com.corrigeaqui.services;
 
+import com.corrigeaqui.dtos.CursorPage;
+import com.corrigeaqui.dtos.FeedEvent;
+import com.corrigeaqui.dtos.FrontAuthorDTO;
+import com.corrigeaqui.dtos.FrontPostDTO;
+import com.corrigeaqui.dtos.FrontStatsDTO;
+import com.corrigeaqui.dtos.PostFeedRow;
+import com.corrigeaqui.dtos.PostGeoState;
 import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.User;
+import com.corrigeaqui.repositories.LikeRepository;
 import com.corrigeaqui.repositories.PostRepository;
+import com.corrigeaqui.utils.ETags;
+import com.corrigeaqui.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class PostService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PostRepository postRepository;
+    private final LikeRepository likeRepository;
+    private final LikeBuffer likeBuffer;
+    private final MarkerClusterService markerClusterService;
+    private final PostSearchService postSearchService;
+    private final SearchIndexService searchIndexService;
+    private final ImageStorageService imageStorageService;
+    private final ImageVariantService imageVariantService;
+    private final FeedCache feedCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
 
+    @Transactional
     public Post create(Post post) {
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        imageStorageService.attach(imageUrls(saved));
+        markerClusterService.onPostChanged(null, geoState(saved));
+        searchIndexService.onPostSaved(saved);
+        feedCache.evictPostChanges();
+        eventPublisher.publishEvent(FeedEvent.postCreated(saved.getId()));
+        outboxService.record("post", saved.getId(), OutboxService.POST_CREATED, OutboxService.fields(
+                "id", saved.getId(),
+                "authorId", saved.getAuthor() != null ? saved.getAuthor().getId() : null,
+                "categoryId", saved.getCategory() != null ? saved.getCategory().getId() : null));
+        return saved;
     }
 
     public Optional<Post> findById(Long id) {
         return postRepository.findById(id);
     }
 
+    // ETag de GET /posts/{id} a partir da versão, sem carregar a entidade
+    public Optional<String> etag(Long id) {
+        return postRepository.findVersion(id).map(version -> ETags.weak("post", id, version));
+    }
+
+    public boolean existsById(Long id) {
+        return postRepository.existsById(id);
+    }
+
     public List<Post> findAll() {
         return postRepository.findAll();
     }
 
     public Page<Post> findAll(Pageable pageable) {
         return postRepository.findAll(pageable);
-    }   
+    }
+
+    // Feed em número constante de consultas: página projetada + imagens + likes do usuário
+    @Transactional(readOnly = true)
+    public Page<FrontPostDTO> getFeed(Pageable pageable, Long userId) {
+        Page<PostFeedRow> rows = postRepository.findFeed(pageable);
+        return new PageImpl<>(toFrontPosts(rows.getContent(), userId), pageable, rows.getTotalElements());
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<FrontPostDTO> getFeedSlice(Pageable pageable, Long userId) {
+        Slice<PostFeedRow> rows = postRepository.findFeedSlice(pageable);
+        return new SliceImpl<>(toFrontPosts(rows.getContent(), userId), pageable, rows.hasNext());
+    }
+
+    // Paginação por cursor (createdAt, id): custo O(página) independente da profundidade.
+    // A página sem dados do usuário vem do cache compartilhado; as curtidas dele são aplicadas depois.
+    @Transactional(readOnly = true)
+    public CursorPage<FrontPostDTO> getFeedByCursor(String cursor, int size, Long userId) {
+        // Limitado também porque cada tamanho distinto ocupa uma entrada própria no cache
+        int pageSize = clamp(size);
+        CursorPage<FrontPostDTO> page = feedCache.feedPage(cursor, pageSize, () -> loadFeedPage(cursor, pageSize));
+        return new CursorPage<>(withUserLikes(page.items(), userId), page.nextCursor());
+    }
 
+    private CursorPage<FrontPostDTO> loadFeedPage(String cursor, int size) {
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<PostFeedRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = postRepository.findFeedRows(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = postRepository.findFeedRowsAfter(after.createdAt(), after.id(), limit);
+        }
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            PostFeedRow last = rows.get(size - 1);
+            next = new KeysetCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CursorPage<>(toFrontPosts(rows, null), next);
+    }
+
+    private List<FrontPostDTO> toFrontPosts(List<PostFeedRow> rows, Long userId) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = rows.stream().map(PostFeedRow::id).toList();
+
+        Map<Long, List<String>> imagesByPost = new HashMap<>();
+        for (Object[] tuple : postRepository.findImagesByPostIds(ids)) {
+            imagesByPost.computeIfAbsent((Long) tuple[0], k -> new ArrayList<>()).add((String) tuple[1]);
+        }
+
+        List<FrontPostDTO> posts = rows.stream()
+                .map(row -> toFrontPost(row, imagesByPost.getOrDefault(row.id(), List.of())))
+                .toList();
+        return withUserLikes(posts, userId);
+    }
 
+    // Marca as curtidas do usuário em DTOs montados sem ele (possivelmente em cache, então copia)
+    private List<FrontPostDTO> withUserLikes(List<FrontPostDTO> posts, Long userId) {
+        if (userId == null || posts.isEmpty()) {
+            return posts;
+        }
+        List<Long> ids = posts.stream().map(FrontPostDTO::id).toList();
+        Set<Long> liked = likeRepository.findLikedPostIds(userId, ids);
+
+        return posts.stream().map(post -> {
+            // Curtida ainda no buffer write-behind: o próprio usuário já a enxerga
+            boolean likedInDb = liked.contains(post.id());
+            Boolean pending = likeBuffer.pending(LikeBuffer.Target.POST, userId, post.id());
+            boolean likedByUser = pending != null ? pending : likedInDb;
+            int likeAdjust = (likedByUser ? 1 : 0) - (likedInDb ? 1 : 0);
+            FrontStatsDTO stats = post.stats();
+            FrontStatsDTO adjusted = likeAdjust == 0 ? stats : new FrontStatsDTO(
+                    Math.max(0, stats.likes() + likeAdjust), stats.comments(), stats.reposts(), stats.shares());
+            return new FrontPostDTO(post.id(), post.author(), post.progress(), post.title(), post.content(),
+                    post.images(), post.imageVariants(), adjusted, likedByUser);
+        }).toList();
+    }
+
+    private FrontPostDTO toFrontPost(PostFeedRow row, List<String> postImages) {
+        FrontAuthorDTO author = new FrontAuthorDTO(
+                row.authorId() != null ? row.authorName() : "",
+                row.authorId() != null ? row.authorSubtitle() : "",
+                row.authorVerified() != null && row.authorVerified(),
+                row.authorAvatar() != null
+                        ? row.authorAvatar()
+                        : (row.authorId() != null ? "/avatars/user" + row.authorId() + ".jpg" : "/avatars/default.jpg"));
+
+        List<String> images = !postImages.isEmpty()
+                ? postImages
+                : (row.imageUrl() != null ? List.of(row.imageUrl()) : List.of());
+
+        FrontStatsDTO stats = new FrontStatsDTO(
+                Math.max(0, row.likeCount() != null ? row.likeCount().intValue() : 0),
+                row.commentCount() != null ? row.commentCount().intValue() : 0,
+                row.reposts() != null ? row.reposts() : 0,
+                row.shares() != null ? row.shares() : 0);
+
+        return new FrontPostDTO(
+                row.id(),
+                author,
+                row.progress() != null ? row.progress() : "Em Revisão",
+                row.title(),
+                row.content(),
+                images,
+                imageVariantService.variants(images),
+                stats,
+                null);
+    }
+
+    // O estado anterior vem do banco, antes do merge da entidade alterada
+    @Transactional
     public Post update(Post post) {
-        return postRepository.save(post);
+        PostGeoState before = null;
+        Set<String> previousImages = Set.of();
+        String previousProgress = null;
+        if (post.getId() != null) {
+            before = postRepository.findGeoState(post.getId()).orElse(null);
+            previousImages = storedImages(post.getId());
+            previousProgress = postRepository.findProgress(post.getId()).orElse(null);
+        }
+        Post saved = postRepository.save(post);
+        markerClusterService.onPostChanged(before, geoState(saved));
+        searchIndexService.onPostSaved(saved);
+        feedCache.evictPostChanges();
+        if (post.getId() != null && !Objects.equals(previousProgress, saved.getProgress())) {
+            eventPublisher.publishEvent(FeedEvent.postStatus(saved.getId(), saved.getProgress()));
+        }
+        outboxService.record("post", saved.getId(), OutboxService.POST_UPDATED, OutboxService.fields(
+                "id", saved.getId(),
+                "progress", saved.getProgress(),
+                "previousProgress", previousProgress));
+
+        imageStorageService.replace(previousImages, imageUrls(saved));
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
+        PostGeoState before = postRepository.findGeoState(id).orElse(null);
+        // Uma referência por entidade: a da denúncia e a de cada comentário
+        List<String> images = new ArrayList<>(storedImages(id));
+        for (Object[] tuple : postRepository.findCommentImageUrls(id)) {
+            images.add((String) tuple[1]);
+        }
         postRepository.deleteById(id);
+        markerClusterService.onPostChanged(before, null);
+        searchIndexService.onPostDeleted(id);
+        feedCache.evictPostChanges();
+        outboxService.record("post", id, OutboxService.POST_DELETED, OutboxService.fields("id", id));
+        imageStorageService.release(images);
+    }
+
+    private Set<String> storedImages(Long id) {
+        Set<String> urls = new HashSet<>();
+        for (Object[] tuple : postRepository.findImagesByPostIds(List.of(id))) {
+            urls.add((String) tuple[1]);
+        }
+        postRepository.findMainImageUrl(id).ifPresent(urls::add);
+        return urls;
+    }
+
+    private static Set<String> imageUrls(Post post) {
+        Set<String> urls = new HashSet<>();
+        if (post.getImages() != null) {
+            urls.addAll(post.getImages());
+        }
+        if (post.getImageUrl() != null) {
+            urls.add(post.getImageUrl());
+        }
+        return urls;
+    }
+
+    // Oculta não conta nos agregados do mapa
+    private static PostGeoState geoState(Post post) {
+        if (Boolean.TRUE.equals(post.getHidden())) {
+            return null;
+        }
+        return new PostGeoState(
+                post.getLatitude(),
+                post.getLongitude(),
+                post.getCategory() != null ? post.getCategory().getId() : null);
     }
 
     public List<Post> findByAuthor(User author) {
@@ -50,7 +281,25 @@ public class PostService {
         return postRepository.findByAuthorId(authorId);
     }
 
-    public List<Post> searchByTitle(String title) {
-        return postRepository.findByTitleContainingIgnoreCase(title);
+    // Resultados na ordem devolvida pela busca (relevância), montados como no feed
+    @Transactional(readOnly = true)
+    public Slice<FrontPostDTO> search(String query, Long categoryId, String status, Pageable pageable, Long userId) {
+        Slice<Long> ids = postSearchService.searchIds(query, categoryId, status, pageable);
+        if (ids.isEmpty()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        Map<Long, PostFeedRow> byId = new HashMap<>();
+        for (PostFeedRow row : postRepository.findFeedRowsByIds(ids.getContent())) {
+            byId.put(row.id(), row);
+        }
+        List<PostFeedRow> rows = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new SliceImpl<>(toFrontPosts(rows, userId), pageable, ids.hasNext());
+    }
+
+    private static int clamp(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
     }
 }
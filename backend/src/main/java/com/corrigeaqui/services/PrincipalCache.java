@@ -0,0 +1,58 @@
+package com.corrigeaqui.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.corrigeaqui.models.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+// Token já validado -> usuário autenticado. Evita novo parse e a consulta ao banco
+// para tokens repetidos; a entrada nunca sobrevive à expiração do próprio token.
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, Entry> cache;
+
+    public PrincipalCache(@Value("${jwt.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${jwt.principal-cache.ttl:PT1M}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtPrincipals");
+    }
+
+    public UserDetails get(String token) {
+        Entry entry = cache.getIfPresent(token);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.expiresAt().isAfter(Instant.now())) {
+            cache.invalidate(token);
+            return null;
+        }
+        return entry.principal();
+    }
+
+    public void put(String token, UserDetails principal, Date expiresAt) {
+        cache.put(token, new Entry(principal, expiresAt.toInstant()));
+    }
+
+    // Chamado quando dados do usuário mudam (senha, papel, exclusão)
+    public void evictUser(Long userId) {
+        cache.asMap().values().removeIf(e -> e.principal() instanceof User u && userId.equals(u.getId()));
+    }
+
+    private record Entry(UserDetails principal, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.corrigeaqui.services;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.corrigeaqui.dtos.PostGeoState;
+import com.corrigeaqui.models.enums.ReportStatus;
+import com.corrigeaqui.repositories.CommentRepository;
+import com.corrigeaqui.repositories.PostRepository;
+import com.corrigeaqui.repositories.ReportRepository;
+import com.corrigeaqui.utils.AfterCommit;
+import com.corrigeaqui.utils.SlidingWindowCounter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// Reação automática a rajadas de denúncias: conta as denúncias de cada alvo numa janela
+// deslizante em memória (sem consultar o banco) e, quando a contagem atinge o limite,
+// escala as pendentes do alvo na fila de moderação; num limite maior (opcional) oculta a
+// denúncia ou o comentário até um moderador restaurar. Cada limite dispara uma vez por
+// rajada: a marca do alvo só some depois de uma janela inteira sem denúncias, então uma taxa
+// constante não soma o reforço de novo e uma restauração não é desfeita na mesma rajada.
+// Só conta denúncias confirmadas: a contagem e as marcas não voltam atrás num rollback, então
+// são aplicadas após o commit, e a escalada/ocultação roda numa transação própria.
+// As contagens são locais à instância: com várias réplicas atrás do balanceador, cada uma
+// vê só a sua parte das denúncias.
+@Slf4j
+@Service
+public class ReportEscalationService {
+
+    // Soma à prioridade das pendentes de um alvo escalado: passa à frente de qualquer gravidade
+    static final int ESCALATION_BOOST = 100;
+
+    // Marcas por alvo no SlidingWindowCounter
+    private static final int ESCALATED = 1;
+    private static final int HIDDEN = 2;
+
+    private final ReportRepository reportRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final MarkerClusterService markerClusterService;
+    private final FeedCache feedCache;
+    private final SearchIndexService searchIndexService;
+    private final OutboxService outboxService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private final SlidingWindowCounter<String> counter;
+    private final int escalateThreshold;
+    private final int hideThreshold;
+
+    public ReportEscalationService(ReportRepository reportRepository,
+                                   PostRepository postRepository,
+                                   CommentRepository commentRepository,
+                                   MarkerClusterService markerClusterService,
+                                   FeedCache feedCache,
+                                   SearchIndexService searchIndexService,
+                                   OutboxService outboxService,
+                                   MeterRegistry meterRegistry,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${reports.escalation.window:PT10M}") Duration window,
+                                   @Value("${reports.escalation.buckets:60}") int buckets,
+                                   @Value("${reports.escalation.threshold:20}") int escalateThreshold,
+                                   @Value("${reports.escalation.hide-threshold:0}") int hideThreshold) {
+        this.reportRepository = reportRepository;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.markerClusterService = markerClusterService;
+        this.feedCache = feedCache;
+        this.searchIndexService = searchIndexService;
+        this.outboxService = outboxService;
+        this.meterRegistry = meterRegistry;
+        // Chamado de dentro do afterCommit, com os recursos da transação anterior ainda ligados
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.counter = new SlidingWindowCounter<>(window, buckets, 4 * Runtime.getRuntime().availableProcessors());
+        this.escalateThreshold = escalateThreshold;
+        this.hideThreshold = hideThreshold;
+        Gauge.builder("reports.escalation.tracked", counter, SlidingWindowCounter::size)
+                .description("Alvos com denúncias recentes na janela")
+                .register(meterRegistry);
+    }
+
+    // Chamado na transação da nova denúncia; conta e reage só depois do commit dela
+    public void onPostReported(Long postId) {
+        AfterCommit.run(() -> {
+            String key = "post:" + postId;
+            int count = counter.increment(key, System.currentTimeMillis());
+            boolean escalate = reached(key, count, escalateThreshold, ESCALATED);
+            boolean hide = reached(key, count, hideThreshold, HIDDEN);
+            if (escalate || hide) {
+                react("post", postId, () -> {
+                    if (escalate) {
+                        reportRepository.escalatePost(postId, ReportStatus.PENDING, ESCALATION_BOOST);
+                        escalated("post", postId, count);
+                    }
+                    if (hide) {
+                        hidePost(postId, count);
+                    }
+                });
+            }
+        });
+    }
+
+    public void onCommentReported(Long commentId) {
+        AfterCommit.run(() -> {
+            String key = "comment:" + commentId;
+            int count = counter.increment(key, System.currentTimeMillis());
+            boolean escalate = reached(key, count, escalateThreshold, ESCALATED);
+            boolean hide = reached(key, count, hideThreshold, HIDDEN);
+            if (escalate || hide) {
+                react("comment", commentId, () -> {
+                    if (escalate) {
+                        reportRepository.escalateComment(commentId, ReportStatus.PENDING, ESCALATION_BOOST);
+                        escalated("comment", commentId, count);
+                    }
+                    if (hide) {
+                        hideComment(commentId, count);
+                    }
+                });
+            }
+        });
+    }
+
+    // Moderador restaura o conteúdo; false se não estava oculto (ou não existe)
+    @Transactional
+    public boolean unhidePost(Long postId) {
+        if (postRepository.updateHidden(postId, false) == 0) {
+            return false;
+        }
+        markerClusterService.onPostChanged(null, postRepository.findGeoState(postId).orElse(null));
+        feedCache.evictPostChanges();
+        searchIndexService.onPostVisibilityChanged(postId);
+        outboxService.record("post", postId, OutboxService.POST_UNHIDDEN, OutboxService.fields("id", postId));
+        return true;
+    }
+
+    @Transactional
+    public boolean unhideComment(Long commentId) {
+        if (commentRepository.updateHidden(commentId, false) == 0) {
+            return false;
+        }
+        searchIndexService.onCommentVisibilityChanged(commentId);
+        outboxService.record("comment", commentId, OutboxService.COMMENT_UNHIDDEN, OutboxService.fields("id", commentId));
+        return true;
+    }
+
+    // Limite ativo (> 0) atingido e ainda não disparado nesta rajada
+    private boolean reached(String key, int count, int threshold, int flag) {
+        return threshold > 0 && count >= threshold && counter.markOnce(key, flag);
+    }
+
+    private void hidePost(Long postId, int count) {
+        // Estado do mapa lido antes: depois de oculta a denúncia some de findGeoState
+        PostGeoState before = postRepository.findGeoState(postId).orElse(null);
+        if (postRepository.updateHidden(postId, true) == 0) {
+            return;
+        }
+        markerClusterService.onPostChanged(before, null);
+        feedCache.evictPostChanges();
+        searchIndexService.onPostVisibilityChanged(postId);
+        outboxService.record("post", postId, OutboxService.POST_HIDDEN,
+                OutboxService.fields("id", postId, "reports", count));
+        meterRegistry.counter("reports.hidden", "target", "post").increment();
+        log.info("Denúncia {} oculta após {} denúncias na janela", postId, count);
+    }
+
+    private void hideComment(Long commentId, int count) {
+        if (commentRepository.updateHidden(commentId, true) == 0) {
+            return;
+        }
+        searchIndexService.onCommentVisibilityChanged(commentId);
+        outboxService.record("comment", commentId, OutboxService.COMMENT_HIDDEN,
+                OutboxService.fields("id", commentId, "reports", count));
+        meterRegistry.counter("reports.hidden", "target", "comment").increment();
+        log.info("Comentário {} oculto após {} denúncias na janela", commentId, count);
+    }
+
+    // A denúncia já foi gravada: uma falha aqui não pode desfazê-la nem chegar ao cliente.
+    // As marcas ficam, então o limite só volta a disparar na próxima rajada
+    private void react(String target, Long id, Runnable action) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> action.run());
+        } catch (RuntimeException e) {
+            log.error("Falha ao reagir às denúncias de {} {}", target, id, e);
+        }
+    }
+
+    private void escalated(String target, Long id, int count) {
+        outboxService.record(target, id, OutboxService.REPORTS_ESCALATED,
+                OutboxService.fields("id", id, "reports", count, "boost", ESCALATION_BOOST));
+        meterRegistry.counter("reports.escalated", "target", target).increment();
+    }
+
+    // Alvos sem denúncias na janela deixam de ocupar memória
+    @Scheduled(fixedDelayString = "${reports.escalation.window:PT10M}")
+    public void evictIdle() {
+        int evicted = counter.evictIdle(System.currentTimeMillis());
+        if (evicted > 0) {
+            log.debug("{} alvos sem denúncias recentes descartados da contagem", evicted);
+        }
+    }
+}
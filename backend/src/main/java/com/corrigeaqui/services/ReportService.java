@@ -1,41 +1,209 @@
 package com.corrigeaqui.services;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.corrigeaqui.dtos.ReportBulkResult;
+import com.corrigeaqui.dtos.ReportBulkUpdateDTO;
+import com.corrigeaqui.dtos.ReportQueueItem;
 import com.corrigeaqui.models.Comment;
 import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.Report;
 import com.corrigeaqui.models.User;
 import com.corrigeaqui.models.enums.ReportStatus;
 import com.corrigeaqui.repositories.ReportRepository;
+import com.corrigeaqui.utils.TextAnalyzer;
 
-import lombok.RequiredArgsConstructor;
-
+// Denúncias de moderação e a fila de trabalho dos moderadores. A prioridade de cada
+// denúncia é a gravidade do motivo mais DUPLICATE_WEIGHT por outra denúncia pendente do
+// mesmo alvo; uma nova denúncia soma o peso às pendentes do alvo, que sobem juntas.
+// Rajadas de denúncias num mesmo alvo são tratadas por ReportEscalationService.
 @Service
-@RequiredArgsConstructor
 public class ReportService {
 
+    static final int DUPLICATE_WEIGHT = 10;
+    // Ids por instrução (IN); o PostgreSQL aceita no máximo 32767 parâmetros
+    private static final int BULK_CHUNK = 1000;
+
+    // Radicais (TextAnalyzer.tokens) -> gravidade; vale a maior encontrada no motivo
+    private static final Map<String, Integer> SEVERITY = Map.ofEntries(
+            Map.entry("ameaca", 50), Map.entry("threat", 50), Map.entry("violencia", 50), Map.entry("violence", 50),
+            Map.entry("assedio", 40), Map.entry("harassment", 40), Map.entry("odio", 40), Map.entry("hate", 40),
+            Map.entry("abuso", 40), Map.entry("abuse", 40),
+            Map.entry("ofensivo", 30), Map.entry("offensive", 30), Map.entry("golpe", 30), Map.entry("scam", 30),
+            Map.entry("fraude", 30), Map.entry("fraud", 30),
+            Map.entry("spam", 20), Map.entry("propaganda", 20), Map.entry("falso", 15), Map.entry("fake", 15));
+    private static final int DEFAULT_SEVERITY = 10;
+
     private final ReportRepository reportRepository;
+    private final OutboxService outboxService;
+    private final ReportEscalationService escalationService;
+    private final Duration claimTtl;
+    private final int bulkMaxSize;
 
+    public ReportService(ReportRepository reportRepository,
+                         OutboxService outboxService,
+                         ReportEscalationService escalationService,
+                         @Value("${reports.claim-ttl:PT30M}") Duration claimTtl,
+                         @Value("${reports.bulk.max-size:10000}") int bulkMaxSize) {
+        this.reportRepository = reportRepository;
+        this.outboxService = outboxService;
+        this.escalationService = escalationService;
+        this.claimTtl = claimTtl;
+        this.bulkMaxSize = bulkMaxSize;
+    }
+
+    @Transactional
     public Report reportPost(User reporter, Post post, String reason) {
-        Report r = Report.builder()
+        long duplicates = reportRepository.countByPostAndStatus(post.getId(), ReportStatus.PENDING);
+        Report r = reportRepository.save(Report.builder()
                 .reporter(reporter)
                 .post(post)
                 .reason(reason)
-                .build();
-        return reportRepository.save(r);
+                .priority(severity(reason) + DUPLICATE_WEIGHT * (int) duplicates)
+                .build());
+        reportRepository.bumpPriorityForPost(post.getId(), ReportStatus.PENDING, DUPLICATE_WEIGHT, r.getId());
+        escalationService.onPostReported(post.getId());
+        return recorded(r, OutboxService.REPORT_CREATED);
     }
 
+    @Transactional
     public Report reportComment(User reporter, Comment comment, String reason) {
-        Report r = Report.builder()
+        long duplicates = reportRepository.countByCommentAndStatus(comment.getId(), ReportStatus.PENDING);
+        Report r = reportRepository.save(Report.builder()
                 .reporter(reporter)
                 .comment(comment)
                 .reason(reason)
-                .build();
-        return reportRepository.save(r);
+                .priority(severity(reason) + DUPLICATE_WEIGHT * (int) duplicates)
+                .build());
+        reportRepository.bumpPriorityForComment(comment.getId(), ReportStatus.PENDING, DUPLICATE_WEIGHT, r.getId());
+        escalationService.onCommentReported(comment.getId());
+        return recorded(r, OutboxService.REPORT_CREATED);
+    }
+
+    // Página por status (ou todas), mais recentes primeiro
+    public Page<Report> findPage(ReportStatus status, Pageable pageable) {
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+        return status != null
+                ? reportRepository.findByStatus(status, sorted)
+                : reportRepository.findAll(sorted);
+    }
+
+    // Alvos com denúncias no status, agregados e ordenados por prioridade
+    @Transactional(readOnly = true)
+    public Slice<ReportQueueItem> findQueue(ReportStatus status, Pageable pageable) {
+        return reportRepository.findQueue(status, pageable);
+    }
+
+    // Reivindica até limit denúncias pendentes para o moderador, sem colidir com outros
+    // moderadores reivindicando ao mesmo tempo (SKIP LOCKED)
+    @Transactional
+    public List<Report> claim(Long moderatorId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = reportRepository.lockClaimable(now.minus(claimTtl), limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        reportRepository.claim(ids, moderatorId, now);
+        return reportRepository.findAllByIdOrdered(ids);
+    }
+
+    // Devolve à fila as pendentes reivindicadas pelo moderador
+    @Transactional
+    public int releaseClaims(Long moderatorId) {
+        return reportRepository.releaseClaims(moderatorId, ReportStatus.PENDING);
+    }
+
+    // Atualiza status/resolution/notes de muitas denúncias com UPDATE por conjunto (em blocos
+    // de BULK_CHUNK ids) e grava um único evento no outbox com todos os ids afetados
+    @Transactional
+    public ReportBulkResult bulkUpdate(ReportBulkUpdateDTO request, Long moderatorId) {
+        if (request.getStatus() == null && request.getResolution() == null && request.getNotes() == null) {
+            throw new IllegalArgumentException("Nothing to update: provide status, resolution or notes");
+        }
+        boolean hasFilter = request.getFromStatus() != null || request.getPostId() != null
+                || request.getCommentId() != null || request.getClaimedBy() != null;
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (hasIds == hasFilter) {
+            throw new IllegalArgumentException("Provide either ids or a filter (fromStatus, postId, commentId, claimedBy)");
+        }
+
+        Map<Long, ReportBulkResult.Outcome> outcomes = new LinkedHashMap<>();
+        List<Long> targets;
+        boolean truncated = false;
+        if (hasIds) {
+            List<Long> requested = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+            if (requested.size() > bulkMaxSize) {
+                throw new IllegalArgumentException("At most " + bulkMaxSize + " ids per request");
+            }
+            Set<Long> existing = new HashSet<>();
+            for (List<Long> chunk : chunks(requested)) {
+                existing.addAll(reportRepository.findExistingIds(chunk));
+            }
+            targets = requested.stream().filter(existing::contains).toList();
+            for (Long id : requested) {
+                outcomes.put(id, existing.contains(id) ? ReportBulkResult.Outcome.UPDATED : ReportBulkResult.Outcome.NOT_FOUND);
+            }
+        } else {
+            targets = reportRepository.findIdsMatching(request.getFromStatus(), request.getPostId(),
+                    request.getCommentId(), request.getClaimedBy(), PageRequest.of(0, bulkMaxSize + 1));
+            if (targets.size() > bulkMaxSize) {
+                targets = targets.subList(0, bulkMaxSize);
+                truncated = true;
+            }
+            for (Long id : targets) {
+                outcomes.put(id, ReportBulkResult.Outcome.UPDATED);
+            }
+        }
+
+        int updated = 0;
+        for (List<Long> chunk : chunks(targets)) {
+            updated += reportRepository.bulkUpdate(chunk, request.getStatus(), request.getResolution(), request.getNotes());
+        }
+        if (!targets.isEmpty()) {
+            // Evento de auditoria do lote; agregado próprio, fora da ordem dos eventos por denúncia
+            outboxService.record("report", "bulk", OutboxService.REPORTS_BULK_UPDATED, OutboxService.fields(
+                    "moderatorId", moderatorId,
+                    "ids", List.copyOf(targets),
+                    "status", request.getStatus(),
+                    "resolution", request.getResolution(),
+                    "notes", request.getNotes()));
+        }
+        return new ReportBulkResult(updated, truncated, outcomes);
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + BULK_CHUNK)));
+        }
+        return chunks;
+    }
+
+    static int severity(String reason) {
+        int severity = DEFAULT_SEVERITY;
+        for (String token : TextAnalyzer.tokens(reason)) {
+            severity = Math.max(severity, SEVERITY.getOrDefault(token, DEFAULT_SEVERITY));
+        }
+        return severity;
     }
 
     public Optional<Report> findById(Long id) {
@@ -54,17 +222,30 @@ public class ReportService {
         return reportRepository.findByStatus(status);
     }
 
+    @Transactional
     public void delete(Long id) {
         reportRepository.deleteById(id);
+        outboxService.record("report", id, OutboxService.REPORT_DELETED, OutboxService.fields("id", id));
     }
 
+    @Transactional
     public Report update(Report report) {
-        return reportRepository.save(report);
+        return recorded(reportRepository.save(report), OutboxService.REPORT_UPDATED);
     }
 
+    @Transactional
     public Report updateStatus(Long id, ReportStatus status) {
         Report r = reportRepository.findById(id).orElseThrow(() -> new java.util.NoSuchElementException("Report not found: " + id));
         r.setStatus(status);
-        return reportRepository.save(r);
+        return recorded(reportRepository.save(r), OutboxService.REPORT_UPDATED);
+    }
+
+    private Report recorded(Report report, String eventType) {
+        outboxService.record("report", report.getId(), eventType, OutboxService.fields(
+                "id", report.getId(),
+                "status", report.getStatus(),
+                "postId", report.getPost() != null ? report.getPost().getId() : null,
+                "commentId", report.getComment() != null ? report.getComment().getId() : null));
+        return report;
     }
 }
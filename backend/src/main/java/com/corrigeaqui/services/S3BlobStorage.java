@@ -0,0 +1,175 @@
+package com.corrigeaqui.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+// Armazenamento num bucket S3 ou compatível (MinIO: storage.s3.endpoint e path-style).
+// O put envia o temporário direto do disco e o get devolve o corpo da resposta como
+// stream; nenhum dos dois carrega o arquivo inteiro na memória.
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3")
+public class S3BlobStorage implements BlobStorage {
+
+    private final S3Client s3;
+    private final String bucket;
+
+    public S3BlobStorage(@Value("${storage.s3.bucket}") String bucket,
+                         @Value("${storage.s3.region:us-east-1}") String region,
+                         @Value("${storage.s3.endpoint:}") String endpoint,
+                         @Value("${storage.s3.path-style:false}") boolean pathStyle,
+                         @Value("${storage.s3.access-key:}") String accessKey,
+                         @Value("${storage.s3.secret-key:}") String secretKey) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle)
+                .credentialsProvider(credentials(accessKey, secretKey));
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        this.s3 = builder.build();
+        this.bucket = bucket;
+    }
+
+    // Sem chaves na configuração vale a cadeia padrão da AWS (variáveis de ambiente, perfil, IAM)
+    private static AwsCredentialsProvider credentials(String accessKey, String secretKey) {
+        if (accessKey.isBlank()) {
+            return DefaultCredentialsProvider.create();
+        }
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    }
+
+    @Override
+    public Path createTempFile(String prefix) throws IOException {
+        return Files.createTempFile(prefix, ".tmp");
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(BlobStorage.requireValidKey(key))
+                .contentType(contentType)
+                .build();
+        try {
+            s3.putObject(request, RequestBody.fromFile(source));
+        } catch (SdkException e) {
+            throw new IOException("Failed to store " + key + " in bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return head(key).isPresent();
+    }
+
+    @Override
+    public Optional<Resource> get(String key) throws IOException {
+        return head(key).map(head -> new S3Resource(key, head));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (!BlobStorage.isValidKey(key)) {
+            return;
+        }
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (SdkException e) {
+            throw new IOException("Failed to delete " + key + " from bucket " + bucket, e);
+        }
+    }
+
+    private Optional<HeadObjectResponse> head(String key) throws IOException {
+        if (!BlobStorage.isValidKey(key)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build()));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Failed to look up " + key + " in bucket " + bucket, e);
+        } catch (SdkException e) {
+            throw new IOException("Failed to look up " + key + " in bucket " + bucket, e);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        s3.close();
+    }
+
+    // Metadados vêm do HEAD feito em get; o conteúdo só é baixado quando o stream é aberto
+    private class S3Resource extends AbstractResource {
+
+        private final String key;
+        private final HeadObjectResponse head;
+
+        S3Resource(String key, HeadObjectResponse head) {
+            this.key = key;
+            this.head = head;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return head.contentLength();
+        }
+
+        @Override
+        public long lastModified() {
+            return head.lastModified().toEpochMilli();
+        }
+
+        @Override
+        public String getFilename() {
+            return key;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+            } catch (SdkException e) {
+                throw new IOException("Failed to read " + key + " from bucket " + bucket, e);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "s3://" + bucket + "/" + key;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.corrigeaqui.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.corrigeaqui.dtos.CommentSearchRow;
+import com.corrigeaqui.dtos.PostSearchRow;
+import com.corrigeaqui.models.Comment;
+import com.corrigeaqui.models.Post;
+import com.corrigeaqui.repositories.CommentRepository;
+import com.corrigeaqui.repositories.PostRepository;
+import com.corrigeaqui.utils.AfterCommit;
+import com.corrigeaqui.utils.InvertedIndex;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Busca em memória (search.engine=memory) para quando o esquema do PostgreSQL não pode
+// ser alterado. Na subida carrega o snapshot em disco e indexa só o que veio depois dele;
+// sem snapshot (ou vencido) lê denúncias e comentários do banco em lotes por id. Escritas
+// de PostService/CommentService atualizam o índice após o commit; edições entre o último
+// snapshot e uma queda abrupta só voltam no rebuild (snapshot-max-age). O índice é local
+// à instância: com várias réplicas, cada uma só enxerga as próprias escritas até o rebuild.
+@Slf4j
+@Service
+public class SearchIndexService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final boolean enabled;
+    private final Path snapshotPath;
+    private final Duration snapshotMaxAge;
+
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile boolean ready;
+    // Alterados durante a carga: relidos do banco ao final para não ficarem com estado antigo
+    private final Set<Long> pendingPosts = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingComments = ConcurrentHashMap.newKeySet();
+    private final AtomicLong changes = new AtomicLong();
+    private long savedChanges;
+
+    public SearchIndexService(PostRepository postRepository,
+                              CommentRepository commentRepository,
+                              @Value("${search.engine:database}") String engine,
+                              @Value("${search.memory.snapshot-path:search-index.bin}") String snapshotPath,
+                              @Value("${search.memory.snapshot-max-age:P1D}") Duration snapshotMaxAge) {
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.enabled = "memory".equalsIgnoreCase(engine);
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.snapshotMaxAge = snapshotMaxAge;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Enquanto a carga não termina, a busca usa o caminho do banco
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        Thread loader = new Thread(this::load, "search-index-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public List<Long> search(String query, Long categoryId, String status, int limit) {
+        return index.search(query, categoryId, status, limit);
+    }
+
+    public void onPostSaved(Post post) {
+        if (!enabled || post.getId() == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(post.getHidden())) {
+            onPostDeleted(post.getId());
+            return;
+        }
+        PostSearchRow row = new PostSearchRow(post.getId(), post.getTitle(), post.getContent(),
+                post.getCategory() != null ? post.getCategory().getId() : null, post.getProgress());
+        AfterCommit.run(() -> {
+            if (track(pendingPosts, row.id())) {
+                index(row);
+            }
+        });
+    }
+
+    public void onPostDeleted(Long id) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (track(pendingPosts, id)) {
+                index.removePost(id);
+                changes.incrementAndGet();
+            }
+        });
+    }
+
+    // Ocultada ou restaurada pela moderação: relê do banco após o commit (oculta sai do índice)
+    public void onPostVisibilityChanged(Long id) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (track(pendingPosts, id)) {
+                refreshPosts(List.of(id));
+            }
+        });
+    }
+
+    public void onCommentSaved(Comment comment) {
+        if (!enabled || comment.getId() == null || comment.getPost() == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(comment.getHidden())) {
+            onCommentDeleted(comment.getId());
+            return;
+        }
+        CommentSearchRow row = new CommentSearchRow(comment.getId(), comment.getPost().getId(), comment.getContent());
+        AfterCommit.run(() -> {
+            if (track(pendingComments, row.id())) {
+                index(row);
+            }
+        });
+    }
+
+    // Respostas removidas em cascata continuam no índice apontando para a denúncia; saem no rebuild
+    public void onCommentDeleted(Long id) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (track(pendingComments, id)) {
+                index.removeComment(id);
+                changes.incrementAndGet();
+            }
+        });
+    }
+
+    public void onCommentVisibilityChanged(Long id) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (track(pendingComments, id)) {
+                refreshComments(List.of(id));
+            }
+        });
+    }
+
+    // true se o índice já pode receber a alteração; durante a carga só anota o id
+    private boolean track(Set<Long> pending, Long id) {
+        if (ready) {
+            return true;
+        }
+        pending.add(id);
+        return false;
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        try {
+            InvertedIndex loaded = readSnapshot();
+            InvertedIndex target = loaded != null ? loaded : new InvertedIndex();
+            int fromSnapshot = target.size();
+            long posts = streamPosts(target, target.maxPostId());
+            long comments = streamComments(target, target.maxCommentId());
+            index = target;
+            ready = true;
+            refreshPending();
+            changes.incrementAndGet();
+            log.info("Índice de busca em memória pronto: {} documentos ({} do snapshot, {} denúncias e {} comentários lidos do banco) em {} ms",
+                    target.size(), fromSnapshot, posts, comments,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (RuntimeException e) {
+            log.error("Falha ao montar o índice de busca em memória; a busca segue pelo banco", e);
+        }
+    }
+
+    private long streamPosts(InvertedIndex target, long afterId) {
+        Pageable batch = PageRequest.of(0, BATCH_SIZE);
+        long count = 0;
+        List<PostSearchRow> rows;
+        do {
+            rows = postRepository.findSearchRows(afterId, batch);
+            for (PostSearchRow row : rows) {
+                target.putPost(row.id(), row.title(), row.content(), row.categoryId(), row.progress());
+                afterId = row.id();
+            }
+            count += rows.size();
+        } while (rows.size() == BATCH_SIZE);
+        return count;
+    }
+
+    private long streamComments(InvertedIndex target, long afterId) {
+        Pageable batch = PageRequest.of(0, BATCH_SIZE);
+        long count = 0;
+        List<CommentSearchRow> rows;
+        do {
+            rows = commentRepository.findSearchRows(afterId, batch);
+            for (CommentSearchRow row : rows) {
+                target.putComment(row.id(), row.postId(), row.content());
+                afterId = row.id();
+            }
+            count += rows.size();
+        } while (rows.size() == BATCH_SIZE);
+        return count;
+    }
+
+    // Relê do banco o que mudou durante a carga; o que não existe mais sai do índice
+    private void refreshPending() {
+        List<Long> postIds = drain(pendingPosts);
+        for (int from = 0; from < postIds.size(); from += BATCH_SIZE) {
+            refreshPosts(postIds.subList(from, Math.min(postIds.size(), from + BATCH_SIZE)));
+        }
+        List<Long> commentIds = drain(pendingComments);
+        for (int from = 0; from < commentIds.size(); from += BATCH_SIZE) {
+            refreshComments(commentIds.subList(from, Math.min(commentIds.size(), from + BATCH_SIZE)));
+        }
+    }
+
+    private void refreshPosts(List<Long> ids) {
+        Set<Long> missing = new HashSet<>(ids);
+        for (PostSearchRow row : postRepository.findSearchRowsByIds(ids)) {
+            index(row);
+            missing.remove(row.id());
+        }
+        missing.forEach(index::removePost);
+        changes.incrementAndGet();
+    }
+
+    private void refreshComments(List<Long> ids) {
+        Set<Long> missing = new HashSet<>(ids);
+        for (CommentSearchRow row : commentRepository.findSearchRowsByIds(ids)) {
+            index(row);
+            missing.remove(row.id());
+        }
+        missing.forEach(index::removeComment);
+        changes.incrementAndGet();
+    }
+
+    private static List<Long> drain(Set<Long> pending) {
+        List<Long> ids = new ArrayList<>(pending);
+        pending.removeAll(ids);
+        return ids;
+    }
+
+    private void index(PostSearchRow row) {
+        index.putPost(row.id(), row.title(), row.content(), row.categoryId(), row.progress());
+        changes.incrementAndGet();
+    }
+
+    private void index(CommentSearchRow row) {
+        index.putComment(row.id(), row.postId(), row.content());
+        changes.incrementAndGet();
+    }
+
+    private InvertedIndex readSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return null;
+        }
+        try {
+            Instant written = Files.getLastModifiedTime(snapshotPath).toInstant();
+            if (written.isBefore(Instant.now().minus(snapshotMaxAge))) {
+                log.info("Snapshot do índice de busca vencido ({}), reconstruindo do banco", written);
+                return null;
+            }
+            try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+                return InvertedIndex.readFrom(in);
+            }
+        } catch (IOException e) {
+            log.warn("Snapshot do índice de busca ilegível, reconstruindo do banco: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Grava em arquivo temporário e troca atomicamente; só quando houve alteração
+    @Scheduled(initialDelayString = "${search.memory.snapshot-interval:PT10M}",
+               fixedDelayString = "${search.memory.snapshot-interval:PT10M}")
+    public synchronized void snapshot() {
+        long current = changes.get();
+        if (!ready || current == savedChanges) {
+            return;
+        }
+        Path tmp = null;
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            tmp = Files.createTempFile(parent, "search-index", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                index.writeTo(out);
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            savedChanges = current;
+            log.debug("Snapshot do índice de busca gravado em {}", snapshotPath);
+        } catch (IOException e) {
+            log.warn("Não foi possível gravar o snapshot do índice de busca: {}", e.getMessage());
+            deleteQuietly(tmp);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Temporário {} não removido: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (enabled) {
+            snapshot();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.corrigeaqui.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.corrigeaqui.models.TokenRevocation;
+import com.corrigeaqui.repositories.TokenRevocationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Lista de negação em memória: userId -> menor versão de token ainda aceita. Cada revogação
+// (troca de email/senha/papel ou remoção) é gravada em token_revocations na transação da
+// alteração e só vale por jwt.expiration: depois disso os tokens que ela barrava venceram,
+// e ela sai do banco e da memória. A lista fica com os usuários revogados na última janela
+// de validade e é recarregada periodicamente para que outras instâncias (e esta, após
+// reiniciar) enxerguem as revogações.
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration tokenLifetime;
+    private final Map<Long, Revocation> minVersions = new ConcurrentHashMap<>();
+    private volatile boolean seeded;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${jwt.expiration}") long tokenLifetimeMillis) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tokenLifetime = Duration.ofMillis(tokenLifetimeMillis);
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Revocation revocation = minVersions.get(userId);
+        return revocation != null && tokenVersion < revocation.minVersion();
+    }
+
+    // Na transação da alteração do usuário: a revogação persiste junto com ela
+    public void revokeBefore(Long userId, int version) {
+        LocalDateTime now = LocalDateTime.now();
+        TokenRevocation revocation = tokenRevocationRepository.findById(userId)
+                .orElseGet(() -> TokenRevocation.builder().userId(userId).minVersion(0).build());
+        revocation.setMinVersion(Math.max(revocation.getMinVersion(), version));
+        revocation.setRevokedAt(now);
+        tokenRevocationRepository.save(revocation);
+        remember(userId, new Revocation(version, now));
+    }
+
+    public void revokeAll(Long userId) {
+        revokeBefore(userId, DELETED);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${jwt.revocation.refresh:PT1M}", fixedDelayString = "${jwt.revocation.refresh:PT1M}")
+    public void refresh() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(tokenLifetime);
+        minVersions.values().removeIf(revocation -> revocation.revokedAt().isBefore(cutoff));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!seeded) {
+                tokenRevocationRepository.seedFromUsers(cutoff);
+            }
+            tokenRevocationRepository.deleteRevokedBefore(cutoff);
+        });
+        seeded = true;
+        for (TokenRevocation revocation : tokenRevocationRepository.findRevokedSince(cutoff)) {
+            remember(revocation.getUserId(), new Revocation(revocation.getMinVersion(), revocation.getRevokedAt()));
+        }
+        log.debug("Lista de revogação de tokens com {} usuários", minVersions.size());
+    }
+
+    private void remember(Long userId, Revocation revocation) {
+        minVersions.merge(userId, revocation, (a, b) -> new Revocation(Math.max(a.minVersion(), b.minVersion()),
+                a.revokedAt().isAfter(b.revokedAt()) ? a.revokedAt() : b.revokedAt()));
+    }
+
+    private record Revocation(int minVersion, LocalDateTime revokedAt) {
+    }
+}
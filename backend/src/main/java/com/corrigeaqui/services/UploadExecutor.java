@@ -0,0 +1,90 @@
+package com.corrigeaqui.services;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.corrigeaqui.exceptions.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+// Gravação dos uploads (hash, registro, armazenamento) fora da thread da requisição, com
+// concorrência e fila limitadas. O corpo multipart já foi recebido quando a tarefa entra
+// aqui; o que se limita é o trabalho de disco/rede/banco. Com a fila cheia a requisição é
+// recusada na hora (429 + Retry-After) em vez de acumular espera.
+@Service
+public class UploadExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final Timer waitTimer;
+    private final Timer processingTimer;
+    private final Counter rejected;
+
+    public UploadExecutor(@Value("${uploads.executor.threads:4}") int threads,
+                          @Value("${uploads.executor.queue-capacity:50}") int queueCapacity,
+                          @Value("${uploads.executor.retry-after:PT5S}") Duration retryAfter,
+                          MeterRegistry meterRegistry) {
+        // Threads virtuais: o limite vem do tamanho do pool, não do custo de cada thread
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("upload-", 1).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+        Gauge.builder("uploads.queue.size", executor, e -> e.getQueue().size())
+                .description("Uploads aguardando processamento")
+                .register(meterRegistry);
+        Gauge.builder("uploads.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Uploads em processamento")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("uploads.wait")
+                .description("Tempo na fila até o início do processamento")
+                .register(meterRegistry);
+        this.processingTimer = Timer.builder("uploads.processing")
+                .description("Tempo de processamento de um upload")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("uploads.rejected")
+                .description("Uploads recusados com a fila cheia")
+                .register(meterRegistry);
+    }
+
+    // Exceções da tarefa completam o future sem embrulho; o Spring MVC as entrega ao GlobalExceptionHandler
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(task.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    processingTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Upload queue is full, try again later", retryAfter);
+        }
+        return result;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -2,11 +2,16 @@ package com.corrigeaqui.services;
 
 import com.corrigeaqui.models.User;
 import com.corrigeaqui.repositories.UserRepository;
+import com.corrigeaqui.utils.ETags;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
@@ -15,15 +20,27 @@ import org.springframework.data.domain.Pageable;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final ImageStorageService imageStorageService;
 
+    @Transactional
     public User create(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        imageStorageService.attach(avatarUrls(saved));
+        return saved;
     }
 
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
 
+    // ETag do perfil público a partir de updatedAt, sem carregar a entidade
+    public Optional<String> etag(Long id) {
+        return userRepository.findUpdatedAt(id)
+                .map(updatedAt -> ETags.weak("user", id, updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli()));
+    }
+
     public List<User> findAll() {
         return userRepository.findAll();
     }
@@ -33,12 +50,39 @@ public class UserService {
         return userRepository.findAll(pageable).getContent();
     }
 
+    // Troca de email, senha ou papel incrementa tokenVersion e revoga os tokens anteriores;
+    // troca de avatar anexa o novo arquivo e solta a referência ao anterior
+    @Transactional
     public User update(User user) {
-        return userRepository.save(user);
+        User current = user.getId() != null ? userRepository.findById(user.getId()).orElse(null) : null;
+        boolean credentialsChanged = current != null
+                && (!Objects.equals(current.getEmail(), user.getEmail())
+                        || !Objects.equals(current.getPassword(), user.getPassword())
+                        || current.getRole() != user.getRole());
+        String previousAvatar = current != null ? current.getAvatar() : null;
+        if (credentialsChanged) {
+            user.setTokenVersion(user.getTokenVersion() + 1);
+        }
+        User saved = userRepository.save(user);
+        if (credentialsChanged) {
+            tokenRevocationService.revokeBefore(saved.getId(), saved.getTokenVersion());
+        }
+        imageStorageService.replace(Stream.ofNullable(previousAvatar).toList(), avatarUrls(saved));
+        principalCache.evictUser(saved.getId());
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
+        List<String> avatar = userRepository.findById(id).map(UserService::avatarUrls).orElse(List.of());
         userRepository.deleteById(id);
+        tokenRevocationService.revokeAll(id);
+        principalCache.evictUser(id);
+        imageStorageService.release(avatar);
+    }
+
+    private static List<String> avatarUrls(User user) {
+        return Stream.ofNullable(user.getAvatar()).toList();
     }
 
     public Optional<User> findByEmail(String email) {
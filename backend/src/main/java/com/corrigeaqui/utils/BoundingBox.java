@@ -0,0 +1,24 @@
+package com.corrigeaqui.utils;
+
+public record BoundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+
+    public BoundingBox {
+        if (minLat < -90 || maxLat > 90 || minLng < -180 || maxLng > 180) {
+            throw new IllegalArgumentException("Coordenadas fora do intervalo válido");
+        }
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new IllegalArgumentException("Área do mapa inválida: mínimo maior que máximo");
+        }
+    }
+
+    // Retorna null quando nenhum limite foi informado; exige os quatro quando algum foi
+    public static BoundingBox ofNullable(Double minLat, Double minLng, Double maxLat, Double maxLng) {
+        if (minLat == null && minLng == null && maxLat == null && maxLng == null) {
+            return null;
+        }
+        if (minLat == null || minLng == null || maxLat == null || maxLng == null) {
+            throw new IllegalArgumentException("Informe minLat, minLng, maxLat e maxLng");
+        }
+        return new BoundingBox(minLat, minLng, maxLat, maxLng);
+    }
+}
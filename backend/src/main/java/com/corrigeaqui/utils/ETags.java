@@ -0,0 +1,26 @@
+package com.corrigeaqui.utils;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// ETags fracos montados a partir de versões e contadores, sem serializar nem calcular hash
+// do corpo. Usados com WebRequest.checkNotModified antes de montar os DTOs.
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String weak(Object... parts) {
+        return "W/\"" + Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-")) + "\"";
+    }
+
+    // Resposta do 304 (o ETag já foi posto por checkNotModified); Cache-Control explícito para
+    // o navegador continuar revalidando em vez de receber o no-store padrão do Spring Security
+    public static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+    }
+}
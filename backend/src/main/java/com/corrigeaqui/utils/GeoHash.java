@@ -0,0 +1,98 @@
+package com.corrigeaqui.utils;
+
+// Codificação geohash (base32) usada para agrupar marcadores por célula
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precisão de geohash inválida: " + precision);
+        }
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // Retorna {minLat, minLng, maxLat, maxLng} da célula
+    public static double[] bounds(String hash) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+
+        for (int i = 0; i < hash.length(); i++) {
+            int idx = BASE32.indexOf(hash.charAt(i));
+            if (idx < 0) {
+                throw new IllegalArgumentException("Geohash inválido: " + hash);
+            }
+            for (int n = 4; n >= 0; n--) {
+                int bitN = (idx >> n) & 1;
+                if (evenBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (bitN == 1) {
+                        minLng = mid;
+                    } else {
+                        maxLng = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (bitN == 1) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[] {minLat, minLng, maxLat, maxLng};
+    }
+
+    // Precisão da célula adequada a um nível de zoom do mapa (tiles web mercator)
+    public static int precisionForZoom(int zoom) {
+        if (zoom <= 2) return 1;
+        if (zoom <= 5) return 2;
+        if (zoom <= 7) return 3;
+        if (zoom <= 10) return 4;
+        if (zoom <= 12) return 5;
+        if (zoom <= 14) return 6;
+        return 7;
+    }
+}
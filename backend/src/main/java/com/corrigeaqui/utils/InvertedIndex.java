@@ -0,0 +1,423 @@
+package com.corrigeaqui.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice invertido em memória com ranking BM25 sobre denúncias e comentários.
+// Cada documento ocupa um slot inteiro crescente; as listas de postings são pares de
+// arrays int (slot, frequência) em ordem de slot. Remoção só marca o slot; o espaço é
+// recuperado por compactação quando os removidos passam de um quarto dos slots.
+// Comentários pontuam para a denúncia a que pertencem, com peso menor.
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_WEIGHT = 2;
+    private static final float COMMENT_WEIGHT = 0.5f;
+    private static final int SNAPSHOT_MAGIC = 0x43415849;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final byte POST = 0;
+    private static final byte COMMENT = 1;
+
+    private static final class Postings {
+        int[] slots = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int slot, int freq) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            slots[size] = slot;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Integer> termIds;
+    private List<String> terms;
+    private List<Postings> postings;
+
+    // Índice direto por slot: usado na compactação e no snapshot
+    private byte[] kinds;
+    private long[] keys;
+    private long[] postIds;
+    private long[] categoryIds;
+    private String[] statuses;
+    private int[] lengths;
+    private int[][] docTerms;
+    private int[][] docFreqs;
+    private BitSet removed;
+    private int slots;
+
+    private Map<Long, Integer> postSlots;
+    private Map<Long, Integer> commentSlots;
+    private int live;
+    private long totalLength;
+    private long maxPostId;
+    private long maxCommentId;
+
+    public InvertedIndex() {
+        reset(1024);
+    }
+
+    private void reset(int capacity) {
+        termIds = new HashMap<>();
+        terms = new ArrayList<>();
+        postings = new ArrayList<>();
+        kinds = new byte[capacity];
+        keys = new long[capacity];
+        postIds = new long[capacity];
+        categoryIds = new long[capacity];
+        statuses = new String[capacity];
+        lengths = new int[capacity];
+        docTerms = new int[capacity][];
+        docFreqs = new int[capacity][];
+        removed = new BitSet(capacity);
+        slots = 0;
+        postSlots = new HashMap<>();
+        commentSlots = new HashMap<>();
+        live = 0;
+        totalLength = 0;
+    }
+
+    // Insere ou substitui a denúncia; categoryId/status alimentam os filtros da busca
+    public void putPost(long id, String title, String content, Long categoryId, String status) {
+        Map<String, Integer> freqs = new LinkedHashMap<>();
+        for (String token : TextAnalyzer.tokens(title)) {
+            freqs.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : TextAnalyzer.tokens(content)) {
+            freqs.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeSlot(postSlots.remove(id));
+            postSlots.put(id, add(POST, id, id, categoryId != null ? categoryId : 0L, status, freqs));
+            maxPostId = Math.max(maxPostId, id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putComment(long id, long postId, String content) {
+        Map<String, Integer> freqs = new LinkedHashMap<>();
+        for (String token : TextAnalyzer.tokens(content)) {
+            freqs.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeSlot(commentSlots.remove(id));
+            commentSlots.put(id, add(COMMENT, id, postId, 0L, null, freqs));
+            maxCommentId = Math.max(maxCommentId, id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Os comentários da denúncia deixam de pontuar imediatamente e saem na próxima compactação
+    public void removePost(long id) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(postSlots.remove(id));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeComment(long id) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(commentSlots.remove(id));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids das denúncias por relevância (empate: mais recente primeiro), até `limit` resultados
+    public List<Long> search(String query, Long categoryId, String status, int limit) {
+        List<String> queryTerms = TextAnalyzer.tokens(query).stream().distinct().toList();
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (live == 0) {
+                return List.of();
+            }
+            float avgLength = Math.max(1f, (float) totalLength / live);
+            float[] scores = new float[slots];
+            BitSet hits = new BitSet(slots);
+            for (String term : queryTerms) {
+                Integer termId = termIds.get(term);
+                if (termId == null) {
+                    continue;
+                }
+                Postings list = postings.get(termId);
+                // df inclui slots removidos ainda não compactados: aproximação aceitável
+                int df = Math.min(list.size, live);
+                float idf = (float) Math.log(1 + (live - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.slots[i];
+                    if (removed.get(slot)) {
+                        continue;
+                    }
+                    int tf = list.freqs[i];
+                    float norm = K1 * (1 - B + B * lengths[slot] / avgLength);
+                    scores[slot] += idf * tf * (K1 + 1) / (tf + norm);
+                    hits.set(slot);
+                }
+            }
+
+            // Por denúncia: pontuação própria + melhor comentário ponderado
+            Map<Long, float[]> byPost = new HashMap<>();
+            for (int slot = hits.nextSetBit(0); slot >= 0; slot = hits.nextSetBit(slot + 1)) {
+                Integer postSlot = postSlots.get(postIds[slot]);
+                if (postSlot == null || !matches(postSlot, categoryId, status)) {
+                    continue;
+                }
+                float[] acc = byPost.computeIfAbsent(postIds[slot], k -> new float[2]);
+                if (kinds[slot] == POST) {
+                    acc[0] = scores[slot];
+                } else {
+                    acc[1] = Math.max(acc[1], COMMENT_WEIGHT * scores[slot]);
+                }
+            }
+            return top(byPost, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean matches(int postSlot, Long categoryId, String status) {
+        return (categoryId == null || categoryIds[postSlot] == categoryId)
+                && (status == null || status.equals(statuses[postSlot]));
+    }
+
+    private static List<Long> top(Map<Long, float[]> byPost, int limit) {
+        Comparator<Map.Entry<Long, Float>> order = Map.Entry.<Long, Float>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Float>> heap = new PriorityQueue<>(order);
+        for (Map.Entry<Long, float[]> entry : byPost.entrySet()) {
+            heap.add(Map.entry(entry.getKey(), entry.getValue()[0] + entry.getValue()[1]));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(heap);
+        ranked.sort(order.reversed());
+        return ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Maiores ids já indexados: o que vier depois deles entra por atualização incremental
+    public long maxPostId() {
+        lock.readLock().lock();
+        try {
+            return maxPostId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long maxCommentId() {
+        lock.readLock().lock();
+        try {
+            return maxCommentId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int add(byte kind, long key, long postId, long categoryId, String status, Map<String, Integer> freqs) {
+        if (slots == kinds.length) {
+            grow(slots * 2);
+        }
+        int slot = slots++;
+        int[] ids = new int[freqs.size()];
+        int[] tfs = new int[freqs.size()];
+        int length = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+            int termId = termIds.computeIfAbsent(entry.getKey(), t -> {
+                terms.add(t);
+                postings.add(new Postings());
+                return terms.size() - 1;
+            });
+            postings.get(termId).add(slot, entry.getValue());
+            ids[i] = termId;
+            tfs[i] = entry.getValue();
+            length += entry.getValue();
+            i++;
+        }
+        kinds[slot] = kind;
+        keys[slot] = key;
+        postIds[slot] = postId;
+        categoryIds[slot] = categoryId;
+        statuses[slot] = status;
+        lengths[slot] = length;
+        docTerms[slot] = ids;
+        docFreqs[slot] = tfs;
+        live++;
+        totalLength += length;
+        return slot;
+    }
+
+    private void removeSlot(Integer slot) {
+        if (slot == null || removed.get(slot)) {
+            return;
+        }
+        removed.set(slot);
+        live--;
+        totalLength -= lengths[slot];
+        docTerms[slot] = null;
+        docFreqs[slot] = null;
+        statuses[slot] = null;
+    }
+
+    private void grow(int capacity) {
+        kinds = Arrays.copyOf(kinds, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        postIds = Arrays.copyOf(postIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        docTerms = Arrays.copyOf(docTerms, capacity);
+        docFreqs = Arrays.copyOf(docFreqs, capacity);
+    }
+
+    // Reconstrói postings e dicionário só com os documentos vivos (comentários órfãos saem)
+    private void compactIfNeeded() {
+        int dead = slots - live;
+        if (slots < 1024 || dead * 4 < slots) {
+            return;
+        }
+        List<String> oldTerms = terms;
+        byte[] oldKinds = kinds;
+        long[] oldKeys = keys;
+        long[] oldPostIds = postIds;
+        long[] oldCategoryIds = categoryIds;
+        String[] oldStatuses = statuses;
+        int[][] oldDocTerms = docTerms;
+        int[][] oldFreqs = docFreqs;
+        BitSet oldRemoved = removed;
+        Map<Long, Integer> oldPostSlots = postSlots;
+        int oldSlots = slots;
+
+        reset(Math.max(1024, live * 2));
+        for (int slot = 0; slot < oldSlots; slot++) {
+            if (oldRemoved.get(slot)
+                    || (oldKinds[slot] == COMMENT && !oldPostSlots.containsKey(oldPostIds[slot]))) {
+                continue;
+            }
+            Map<String, Integer> freqs = new LinkedHashMap<>();
+            for (int i = 0; i < oldDocTerms[slot].length; i++) {
+                freqs.put(oldTerms.get(oldDocTerms[slot][i]), oldFreqs[slot][i]);
+            }
+            int newSlot = add(oldKinds[slot], oldKeys[slot], oldPostIds[slot], oldCategoryIds[slot], oldStatuses[slot], freqs);
+            (oldKinds[slot] == POST ? postSlots : commentSlots).put(oldKeys[slot], newSlot);
+        }
+    }
+
+    // Snapshot: dicionário + índice direto dos documentos vivos; as postings são refeitas na leitura
+    public void writeTo(OutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(SNAPSHOT_MAGIC);
+            data.writeInt(SNAPSHOT_VERSION);
+            data.writeLong(maxPostId);
+            data.writeLong(maxCommentId);
+            data.writeInt(terms.size());
+            for (String term : terms) {
+                data.writeUTF(term);
+            }
+            data.writeInt(live);
+            for (int slot = 0; slot < slots; slot++) {
+                if (removed.get(slot)) {
+                    continue;
+                }
+                data.writeByte(kinds[slot]);
+                data.writeLong(keys[slot]);
+                data.writeLong(postIds[slot]);
+                data.writeLong(categoryIds[slot]);
+                data.writeBoolean(statuses[slot] != null);
+                if (statuses[slot] != null) {
+                    data.writeUTF(statuses[slot]);
+                }
+                data.writeInt(docTerms[slot].length);
+                for (int i = 0; i < docTerms[slot].length; i++) {
+                    data.writeInt(docTerms[slot][i]);
+                    data.writeInt(docFreqs[slot][i]);
+                }
+            }
+            data.flush();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static InvertedIndex readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != SNAPSHOT_MAGIC || data.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Formato de snapshot desconhecido");
+        }
+        InvertedIndex index = new InvertedIndex();
+        index.maxPostId = data.readLong();
+        index.maxCommentId = data.readLong();
+        String[] dictionary = new String[data.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = data.readUTF();
+        }
+        int documents = data.readInt();
+        for (int d = 0; d < documents; d++) {
+            byte kind = data.readByte();
+            long key = data.readLong();
+            long postId = data.readLong();
+            long categoryId = data.readLong();
+            String status = data.readBoolean() ? data.readUTF() : null;
+            Map<String, Integer> freqs = new LinkedHashMap<>();
+            int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                int termId = data.readInt();
+                if (termId < 0 || termId >= dictionary.length) {
+                    throw new IOException("Snapshot corrompido");
+                }
+                freqs.put(dictionary[termId], data.readInt());
+            }
+            int slot = index.add(kind, key, postId, categoryId, status, freqs);
+            (kind == POST ? index.postSlots : index.commentSlots).put(key, slot);
+        }
+        return index;
+    }
+}
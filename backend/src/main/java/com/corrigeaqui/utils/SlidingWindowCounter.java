@@ -0,0 +1,148 @@
+package com.corrigeaqui.utils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Contagem de eventos por chave numa janela deslizante, aproximada por baldes de duração
+// fixa (janela / buckets): vale a soma dos baldes que ainda estão dentro da janela. As chaves
+// ficam espalhadas em faixas com trava própria, então incrementos de chaves diferentes quase
+// nunca disputam a mesma trava. O instante é informado pelo chamador (milissegundos).
+public final class SlidingWindowCounter<K> {
+
+    private final Stripe<K>[] stripes;
+    private final int buckets;
+    private final long bucketMillis;
+
+    @SuppressWarnings("unchecked")
+    public SlidingWindowCounter(Duration window, int buckets, int stripes) {
+        if (buckets < 1 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("Window must hold at least one millisecond per bucket");
+        }
+        this.buckets = buckets;
+        this.bucketMillis = window.toMillis() / buckets;
+        // Potência de 2: a faixa sai do hash com uma máscara
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe<>();
+        }
+    }
+
+    // Soma um evento e devolve o total da chave na janela, já incluindo este
+    public int increment(K key, long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        Stripe<K> stripe = stripe(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.computeIfAbsent(key, k -> new Window(buckets));
+            return window.add(bucket, buckets);
+        }
+    }
+
+    public int count(K key, long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        Stripe<K> stripe = stripe(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.get(key);
+            return window != null ? window.sum(bucket, buckets) : 0;
+        }
+    }
+
+    // Marca a chave com o bit flag; true só na primeira vez. A marca vive enquanto a chave
+    // estiver sendo contada: some quando ela passa uma janela inteira sem eventos (evictIdle)
+    public boolean markOnce(K key, int flag) {
+        Stripe<K> stripe = stripe(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.computeIfAbsent(key, k -> new Window(buckets));
+            if ((window.marks & flag) != 0) {
+                return false;
+            }
+            window.marks |= flag;
+            return true;
+        }
+    }
+
+    public void reset(K key) {
+        Stripe<K> stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.windows.remove(key);
+        }
+    }
+
+    // Descarta chaves sem eventos na janela; devolve quantas saíram
+    public int evictIdle(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        int evicted = 0;
+        for (Stripe<K> stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Window> it = stripe.windows.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().last <= bucket - buckets) {
+                        it.remove();
+                        evicted++;
+                    }
+                }
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.windows.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe<K> stripe(K key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe<K> {
+        private final Map<K, Window> windows = new HashMap<>();
+    }
+
+    // Anel de baldes: a posição i guarda a contagem do balde slots[i] (reaproveitada quando vence)
+    private static final class Window {
+
+        private final int[] counts;
+        private final long[] slots;
+        private long last = Long.MIN_VALUE;
+        private int marks;
+
+        Window(int buckets) {
+            this.counts = new int[buckets];
+            this.slots = new long[buckets];
+            Arrays.fill(slots, Long.MIN_VALUE);
+        }
+
+        int add(long bucket, int buckets) {
+            // Instante um pouco atrasado (outra thread já avançou o balde): conta no mais recente
+            bucket = Math.max(bucket, last);
+            int i = (int) Math.floorMod(bucket, (long) buckets);
+            if (slots[i] != bucket) {
+                slots[i] = bucket;
+                counts[i] = 0;
+            }
+            counts[i]++;
+            last = bucket;
+            return sum(bucket, buckets);
+        }
+
+        int sum(long bucket, int buckets) {
+            int total = 0;
+            for (int i = 0; i < buckets; i++) {
+                if (slots[i] > bucket - buckets && slots[i] <= bucket) {
+                    total += counts[i];
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.corrigeaqui.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Tokenização para o índice em memória: minúsculas, sem acentos ("lâmpada" = "lampada"),
+// sem stopwords e com redução simples de plural ("buracos" = "buraco", "ligações" = "ligação")
+public final class TextAnalyzer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "as", "os", "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos",
+            "um", "uma", "uns", "umas", "ao", "aos", "por", "pela", "pelo", "pelas", "pelos",
+            "para", "pra", "com", "sem", "que", "se", "ou", "mas", "mais", "muito", "ja", "nao",
+            "foi", "ser", "esta", "este", "isso", "isto", "essa", "esse", "ha", "tem", "sao", "eu", "ele", "ela");
+
+    private TextAnalyzer() {
+    }
+
+    public static List<String> tokens(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String raw : SEPARATORS.split(fold(text))) {
+            if (raw.length() < 2 || STOPWORDS.contains(raw)) {
+                continue;
+            }
+            tokens.add(stem(raw));
+        }
+        return tokens;
+    }
+
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    private static String stem(String token) {
+        if (token.length() <= 3) {
+            return token;
+        }
+        if (token.endsWith("oes") || token.endsWith("aes")) {
+            return token.substring(0, token.length() - 3) + "ao";
+        }
+        if (token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
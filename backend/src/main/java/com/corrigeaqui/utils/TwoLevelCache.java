@@ -0,0 +1,210 @@
+package com.corrigeaqui.utils;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// Cache em dois níveis: L1 Caffeine na instância e L2 compartilhado (Redis em produção;
+// qualquer Cache nos testes). Leituras tentam L1, depois L2 (copiando para o L1). Escritas
+// e remoções vão aos dois e avisam as outras instâncias pelo publisher para que descartem
+// o L1. Falhas do L2 não derrubam a requisição: o cache segue só com o L1.
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    // Aviso às outras instâncias; key null = limpar o cache inteiro
+    @FunctionalInterface
+    public interface Publisher {
+        void publish(String cacheName, Object key);
+    }
+
+    private final String name;
+    private final CaffeineCache local;
+    private final Cache remote;
+    private final Publisher publisher;
+
+    private final Counter l1Hits;
+    private final Counter l2Hits;
+    private final Counter misses;
+    private final Counter remoteErrors;
+
+    public TwoLevelCache(CaffeineCache local, Cache remote, Publisher publisher, MeterRegistry meterRegistry) {
+        this.name = local.getName();
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+        this.l1Hits = gets(meterRegistry, "l1_hit");
+        this.l2Hits = gets(meterRegistry, "l2_hit");
+        this.misses = gets(meterRegistry, "miss");
+        this.remoteErrors = Counter.builder("cache.tiered.remote.errors").tag("cache", name)
+                .description("Falhas de acesso ao L2").register(meterRegistry);
+        Gauge.builder("cache.tiered.hit.ratio", this, TwoLevelCache::hitRatio).tag("cache", name)
+                .description("Fração das leituras atendidas pelo L1 ou pelo L2").register(meterRegistry);
+        Gauge.builder("cache.tiered.l1.size", local, c -> c.getNativeCache().estimatedSize())
+                .tag("cache", name).register(meterRegistry);
+    }
+
+    private Counter gets(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.tiered.gets").tag("cache", name).tag("result", result)
+                .description("Leituras do cache em dois níveis").register(meterRegistry);
+    }
+
+    private double hitRatio() {
+        double hits = l1Hits.count() + l2Hits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value != null) {
+            l1Hits.increment();
+            return value;
+        }
+        value = remoteGet(key);
+        if (value != null) {
+            l2Hits.increment();
+            local.put(key, value.get());
+            return value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    // Valor carregado na falta não é aviso para as outras instâncias: elas não têm versão mais nova
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        remotePut(key, value);
+        local.put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remotePut(key, value);
+        local.put(key, value);
+        publish(key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteEvict(key);
+        local.evict(key);
+        publish(key);
+    }
+
+    @Override
+    public void clear() {
+        remoteClear();
+        local.clear();
+        publish(null);
+    }
+
+    // Aviso de outra instância: a chave chega como texto, então compara pela forma textual
+    public void evictLocal(String key) {
+        local.getNativeCache().asMap().keySet().removeIf(k -> String.valueOf(k).equals(key));
+    }
+
+    public void clearLocal() {
+        local.clear();
+    }
+
+    private ValueWrapper remoteGet(Object key) {
+        if (remote == null) {
+            return null;
+        }
+        try {
+            return remote.get(key);
+        } catch (RuntimeException e) {
+            remoteFailure("get", e);
+            return null;
+        }
+    }
+
+    private void remotePut(Object key, Object value) {
+        if (remote == null) {
+            return;
+        }
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            remoteFailure("put", e);
+        }
+    }
+
+    private void remoteEvict(Object key) {
+        if (remote == null) {
+            return;
+        }
+        try {
+            remote.evict(key);
+        } catch (RuntimeException e) {
+            remoteFailure("evict", e);
+        }
+    }
+
+    private void remoteClear() {
+        if (remote == null) {
+            return;
+        }
+        try {
+            remote.clear();
+        } catch (RuntimeException e) {
+            remoteFailure("clear", e);
+        }
+    }
+
+    private void publish(Object key) {
+        if (publisher == null) {
+            return;
+        }
+        try {
+            publisher.publish(name, key);
+        } catch (RuntimeException e) {
+            remoteFailure("publish", e);
+        }
+    }
+
+    private void remoteFailure(String operation, RuntimeException e) {
+        remoteErrors.increment();
+        log.debug("Cache {}: falha no L2 ({}): {}", name, operation, e.getMessage());
+    }
+}
@@ -0,0 +1,45 @@
+package com.corrigeaqui.utils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+
+// Política de cache dos arquivos em /uploads. Nomes com UUID ou SHA-256 nunca mudam de
+// conteúdo: cache público de um ano, imutável. Os demais (ex.: avatar padrão) são
+// revalidados a cada uso pelo ETag, que custa só um 304.
+public final class UploadCaching {
+
+    private static final Pattern IMMUTABLE_NAME = Pattern.compile(
+            ".*([0-9a-f]{64}|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}).*");
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    private UploadCaching() {
+    }
+
+    public static boolean isImmutable(String filename) {
+        return IMMUTABLE_NAME.matcher(filename).matches();
+    }
+
+    public static CacheControl cacheControl(String filename) {
+        return isImmutable(filename) ? IMMUTABLE : REVALIDATE;
+    }
+
+    // ETag forte a partir dos metadados (tamanho + modificação), sem ler o conteúdo
+    public static String etag(long size, long lastModified) {
+        return Long.toHexString(size) + "-" + Long.toHexString(lastModified);
+    }
+
+    // Para o ResourceHttpRequestHandler; sem metadados legíveis, segue sem ETag
+    public static String etag(Resource resource) {
+        try {
+            return etag(resource.contentLength(), resource.lastModified());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.corrigeaqui.config;
+
+import com.corrigeaqui.dtos.CursorPage;
+import com.corrigeaqui.dtos.FrontPostDTO;
+import com.corrigeaqui.services.FeedCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.mock.env.MockEnvironment;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Duas "instâncias" (CacheConfig com nodeId próprio) sobre um Redis real em contêiner:
+// serialização do L2, publicação e recepção dos avisos de invalidação. Pulado sem Docker.
+@Testcontainers(disabledWithoutDocker = true)
+public class CacheConfigRedisTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private final List<RedisMessageListenerContainer> listeners = new ArrayList<>();
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+    }
+
+    @AfterEach
+    void disconnect() throws Exception {
+        for (RedisMessageListenerContainer listener : listeners) {
+            listener.destroy();
+        }
+        connectionFactory.destroy();
+    }
+
+    private CacheManager node() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("redisConnectionFactory", connectionFactory);
+        beans.addBean("stringRedisTemplate", new StringRedisTemplate(connectionFactory));
+        CacheConfig config = new CacheConfig();
+        CacheManager manager = config.cacheManager(new MockEnvironment(), new SimpleMeterRegistry(), 100, true, "test:",
+                beans.getBeanProvider(RedisConnectionFactory.class), beans.getBeanProvider(StringRedisTemplate.class));
+        RedisMessageListenerContainer listener = config.cacheInvalidationListener(connectionFactory, manager);
+        listener.afterPropertiesSet();
+        listener.start();
+        listeners.add(listener);
+        return manager;
+    }
+
+    @Test
+    void pageCachedOnOneNodeIsReadFromRedisAndEvictedEverywhere() {
+        Cache feedA = node().getCache(FeedCache.FEED_CACHE);
+        Cache feedB = node().getCache(FeedCache.FEED_CACHE);
+        CursorPage<FrontPostDTO> first = CacheConfigTest.page("next-1");
+        CursorPage<FrontPostDTO> second = CacheConfigTest.page("next-2");
+
+        feedA.get("first:10", () -> first);
+        // Vem do Redis (desserializado) e fica no L1 de B
+        assertThat(feedB.get("first:10", () -> second)).isEqualTo(first);
+
+        feedA.evict("first:10");
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> assertThat(feedB.get("first:10", () -> second)).isEqualTo(second));
+
+        feedA.clear();
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> assertThat(feedB.get("first:10")).isNull());
+    }
+}
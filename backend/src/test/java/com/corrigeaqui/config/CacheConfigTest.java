@@ -0,0 +1,56 @@
+package com.corrigeaqui.config;
+
+import com.corrigeaqui.dtos.CursorPage;
+import com.corrigeaqui.dtos.FrontPostDTO;
+import com.corrigeaqui.services.FeedCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Avisos de invalidação sem Redis; o caminho com Redis está em CacheConfigRedisTest
+public class CacheConfigTest {
+
+    private final CacheConfig config = new CacheConfig();
+    private final CacheManager manager = config.cacheManager(new MockEnvironment(), new SimpleMeterRegistry(),
+            100, false, "test:", null, null);
+
+    @Test
+    void invalidationFromOtherNodeEvictsKeyOrWholeCache() {
+        Cache feed = manager.getCache(FeedCache.FEED_CACHE);
+        feed.put("first:10", page("a"));
+        feed.put("first:20", page("b"));
+
+        config.onInvalidation("other-node|feed|first:10", manager);
+        assertThat(feed.get("first:10")).isNull();
+        assertThat(feed.get("first:20")).isNotNull();
+
+        config.onInvalidation("other-node|feed|", manager);
+        assertThat(feed.get("first:20")).isNull();
+    }
+
+    @Test
+    void ownAndMalformedMessagesAreIgnored() {
+        Cache feed = manager.getCache(FeedCache.FEED_CACHE);
+        feed.put("first:10", page("a"));
+
+        config.onInvalidation(config.nodeId() + "|feed|first:10", manager);
+        config.onInvalidation("garbage", manager);
+        config.onInvalidation("other-node|feed", manager);
+        config.onInvalidation("other-node|unknown|first:10", manager);
+
+        assertThat(feed.get("first:10")).isNotNull();
+    }
+
+    static CursorPage<FrontPostDTO> page(String next) {
+        FrontPostDTO post = new FrontPostDTO(1L, null, "Em Revisão", "Buraco", "Rua X",
+                List.of("/uploads/a.jpg"), List.of(), null, false);
+        return new CursorPage<>(List.of(post), next);
+    }
+}
@@ -1,11 +1,16 @@
 package com.corrigeaqui.repositories;
 
+import com.corrigeaqui.dtos.CommentRow;
+import com.corrigeaqui.dtos.CommentSearchRow;
+import com.corrigeaqui.dtos.VersionStamp;
 import com.corrigeaqui.models.Comment;
 import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
 
@@ -23,6 +28,9 @@ public class CommentRepositoryTest {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void findByPost_returnsSavedComment() {
         User u = User.builder().name("Alice").email("alice@example.com").password("p").build();
@@ -38,4 +46,96 @@ public class CommentRepositoryTest {
         assertThat(results).isNotEmpty();
         assertThat(results).extracting(Comment::getId).contains(c.getId());
     }
+
+    @Test
+    void findTopLevelRowsAfter_continuesFromCursor() {
+        User u = User.builder().name("Dave").email("dave@example.com").password("p").build();
+        u = userRepository.save(u);
+
+        Post p = Post.builder().title("T").content("C").author(u).build();
+        p = postRepository.save(p);
+
+        for (int i = 0; i < 3; i++) {
+            commentRepository.save(Comment.builder().content("c" + i).author(u).post(p).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<CommentRow> first = commentRepository.findTopLevelRows(p.getId(), PageRequest.of(0, 2));
+        assertThat(first).hasSize(2);
+        assertThat(first.get(0).authorName()).isEqualTo("Dave");
+
+        CommentRow last = first.get(1);
+        List<CommentRow> rest = commentRepository.findTopLevelRowsAfter(p.getId(), last.createdAt(), last.id(), PageRequest.of(0, 2));
+        assertThat(rest).hasSize(1);
+        assertThat(rest).extracting(CommentRow::id).doesNotContainAnyElementsOf(first.stream().map(CommentRow::id).toList());
+    }
+
+    @Test
+    void findFirstReplyIds_limitsRepliesPerParent() {
+        User u = userRepository.save(User.builder().name("Eve").email("eve@example.com").password("p").build());
+        Post p = postRepository.save(Post.builder().title("T").content("C").author(u).build());
+
+        Comment a = commentRepository.save(Comment.builder().content("a").author(u).post(p).build());
+        Comment b = commentRepository.save(Comment.builder().content("b").author(u).post(p).build());
+        for (int i = 0; i < 4; i++) {
+            commentRepository.save(Comment.builder().content("ra" + i).author(u).post(p).parent(a).build());
+        }
+        commentRepository.save(Comment.builder().content("rb").author(u).post(p).parent(b).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> ids = commentRepository.findFirstReplyIds(List.of(a.getId(), b.getId()), 2);
+        assertThat(ids).hasSize(3);
+
+        List<CommentRow> rows = commentRepository.findRowsByIds(ids);
+        assertThat(rows).filteredOn(r -> r.parentId().equals(a.getId())).hasSize(2);
+        assertThat(rows).filteredOn(r -> r.parentId().equals(b.getId())).hasSize(1);
+    }
+
+    @Test
+    void findThreadStamp_changesWithEditsRepliesAndCounters() {
+        User u = userRepository.save(User.builder().name("Gil").email("gil@example.com").password("p").build());
+        Post p = postRepository.save(Post.builder().title("T").content("C").author(u).build());
+        Comment root = commentRepository.save(Comment.builder().content("root").author(u).post(p).build());
+        entityManager.flush();
+
+        VersionStamp initial = commentRepository.findThreadStamp(root.getId());
+        assertThat(initial.count()).isEqualTo(1);
+
+        Comment reply = commentRepository.save(Comment.builder().content("r").author(u).post(p).parent(root).build());
+        entityManager.flush();
+        VersionStamp withReply = commentRepository.findThreadStamp(root.getId());
+        assertThat(withReply.count()).isEqualTo(2);
+        assertThat(withReply.tag()).isNotEqualTo(initial.tag());
+
+        reply.setContent("r editada");
+        entityManager.flush();
+        VersionStamp edited = commentRepository.findThreadStamp(root.getId());
+        assertThat(edited.tag()).isNotEqualTo(withReply.tag());
+
+        commentRepository.incrementLikeCount(root.getId(), 1);
+        entityManager.clear();
+        assertThat(commentRepository.findThreadStamp(root.getId()).tag()).isNotEqualTo(edited.tag());
+        assertThat(commentRepository.findThreadStamp(-1L).isEmpty()).isTrue();
+    }
+
+    @Test
+    void updateHidden_removesCommentFromSearchRows() {
+        User u = userRepository.save(User.builder().name("Lia").email("lia@example.com").password("p").build());
+        Post p = postRepository.save(Post.builder().title("T").content("C").author(u).build());
+        Comment kept = commentRepository.save(Comment.builder().content("Buraco").author(u).post(p).build());
+        Comment spam = commentRepository.save(Comment.builder().content("Spam").author(u).post(p).build());
+
+        assertThat(commentRepository.updateHidden(spam.getId(), true)).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(commentRepository.findSearchRows(0L, PageRequest.of(0, 10)))
+                .extracting(CommentSearchRow::id).containsExactly(kept.getId());
+        assertThat(commentRepository.findSearchRowsByIds(List.of(kept.getId(), spam.getId())))
+                .extracting(CommentSearchRow::id).containsExactly(kept.getId());
+
+        assertThat(commentRepository.updateHidden(spam.getId(), false)).isEqualTo(1);
+        assertThat(commentRepository.findSearchRowsByIds(List.of(spam.getId()))).hasSize(1);
+    }
 }
@@ -38,4 +38,18 @@ public class LikeRepositoryTest {
         assertThat(exists).isTrue();
         assertThat(count).isEqualTo(1L);
     }
+
+    @Test
+    void deleteByUserAndPost_usesReferencesAndReportsAffectedRows() {
+        User u = userRepository.save(User.builder().name("Dan").email("dan@example.com").password("p").build());
+        Post p = postRepository.save(Post.builder().title("Title").content("C").author(u).build());
+        likeRepository.save(Like.builder().user(u).post(p).build());
+
+        User userRef = userRepository.getReferenceById(u.getId());
+        Post postRef = postRepository.getReferenceById(p.getId());
+
+        assertThat(likeRepository.deleteByUserAndPost(userRef, postRef)).isEqualTo(1);
+        assertThat(likeRepository.deleteByUserAndPost(userRef, postRef)).isZero();
+        assertThat(likeRepository.countByPost(p)).isZero();
+    }
 }
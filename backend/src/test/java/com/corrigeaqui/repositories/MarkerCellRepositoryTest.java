@@ -0,0 +1,44 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.models.MarkerCell;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class MarkerCellRepositoryTest {
+
+    @Autowired
+    private MarkerCellRepository markerCellRepository;
+
+    @Test
+    void findInBox_filtersByPrecisionAndCenter() {
+        markerCellRepository.save(cell(5, "75cm8", 1L, 3L, -8.06, -34.88));
+        markerCellRepository.save(cell(5, "75cm9", 0L, 0L, -8.02, -34.88));
+        markerCellRepository.save(cell(4, "75cm", 1L, 3L, -8.0, -34.9));
+        markerCellRepository.save(cell(5, "6gyf4", 1L, 2L, -23.55, -46.63));
+
+        List<MarkerCell> found = markerCellRepository.findInBox(5, -8.2, -35.0, -7.9, -34.8);
+        assertThat(found).extracting(MarkerCell::getCell).containsExactlyInAnyOrder("75cm8", "75cm9");
+
+        assertThat(markerCellRepository.deleteIfEmpty(5, "75cm8", 1L)).isZero();
+        assertThat(markerCellRepository.deleteIfEmpty(5, "75cm9", 0L)).isEqualTo(1);
+    }
+
+    private static MarkerCell cell(int precision, String cell, long categoryId, long count, double lat, double lng) {
+        return MarkerCell.builder()
+                .cellPrecision(precision)
+                .cell(cell)
+                .categoryId(categoryId)
+                .postCount(count)
+                .sumLat(lat * count)
+                .sumLng(lng * count)
+                .centerLat(lat)
+                .centerLng(lng)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.models.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class OutboxEventRepositoryTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private OutboxEvent save(String aggregateId, LocalDateTime availableAt, int attempts) {
+        return outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType("post")
+                .aggregateId(aggregateId)
+                .eventType("post.created")
+                .payload("{}")
+                .availableAt(availableAt)
+                .attempts(attempts)
+                .build());
+    }
+
+    @Test
+    void lockBatch_returnsAvailableEventsInOrderUpToLimit() {
+        // Sem frações: a coluna pode guardar menos precisão que o LocalDateTime em memória
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        OutboxEvent first = save("1", now.minusSeconds(10), 0);
+        save("2", now.plusMinutes(5), 1);   // aguardando nova tentativa
+        OutboxEvent third = save("3", now.minusSeconds(5), 2);
+        save("4", now.minusSeconds(5), 10); // tentativas esgotadas
+        OutboxEvent fifth = save("5", now, 0);
+
+        assertThat(outboxEventRepository.lockBatch(now, 10, 10))
+                .extracting(OutboxEvent::getId)
+                .containsExactly(first.getId(), third.getId(), fifth.getId());
+        assertThat(outboxEventRepository.lockBatch(now, 10, 2))
+                .extracting(OutboxEvent::getId)
+                .containsExactly(first.getId(), third.getId());
+    }
+
+    @Test
+    void lockBatch_holdsLaterEventsOfAnAggregateBehindThePendingOne() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        save("1", now.plusMinutes(5), 1);                     // falhou, aguardando nova tentativa
+        save("1", now.minusSeconds(5), 0);                    // mesmo agregado: espera o anterior
+        OutboxEvent other = save("2", now.minusSeconds(5), 0);
+        save("3", now.minusSeconds(10), 10);                  // tentativas esgotadas: não segura
+        OutboxEvent afterDead = save("3", now.minusSeconds(5), 0);
+
+        assertThat(outboxEventRepository.lockBatch(now, 10, 10))
+                .extracting(OutboxEvent::getId)
+                .containsExactly(other.getId(), afterDead.getId());
+    }
+
+    @Test
+    void lease_hidesClaimedEventsButKeepsHoldingTheirAggregate() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        OutboxEvent claimed = save("1", now.minusSeconds(5), 0);
+        save("1", now.minusSeconds(5), 0);                    // espera o reservado
+        OutboxEvent other = save("2", now.minusSeconds(5), 0);
+
+        assertThat(outboxEventRepository.lease(List.of(claimed.getId()), now.plusMinutes(5))).isEqualTo(1);
+        assertThat(outboxEventRepository.lockBatch(now, 10, 10))
+                .extracting(OutboxEvent::getId)
+                .containsExactly(other.getId());
+
+        // Falhou: volta com a nova tentativa, ainda na frente do agregado
+        assertThat(outboxEventRepository.reschedule(claimed.getId(), 1, now.minusSeconds(1), "boom")).isEqualTo(1);
+        assertThat(outboxEventRepository.lockBatch(now, 10, 10))
+                .extracting(OutboxEvent::getId)
+                .containsExactly(claimed.getId(), other.getId());
+    }
+}
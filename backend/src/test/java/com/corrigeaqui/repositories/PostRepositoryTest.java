@@ -0,0 +1,142 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.dtos.PostFeedRow;
+import com.corrigeaqui.dtos.PostSearchRow;
+import com.corrigeaqui.models.Comment;
+import com.corrigeaqui.models.Like;
+import com.corrigeaqui.models.Post;
+import com.corrigeaqui.models.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class PostRepositoryTest {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Test
+    void findFeed_projectsAuthorAndCounts() {
+        User u = User.builder().name("Carol").email("carol@example.com").password("p").build();
+        u = userRepository.save(u);
+
+        Post p = Post.builder().title("Buraco").content("Rua X").author(u).images(new ArrayList<>(List.of("/uploads/a.jpg"))).build();
+        p = postRepository.save(p);
+
+        likeRepository.save(Like.builder().user(u).post(p).build());
+        commentRepository.save(Comment.builder().content("Verdade").author(u).post(p).build());
+        commentRepository.save(Comment.builder().content("Também vi").author(u).post(p).build());
+
+        List<Long> driftedLikes = postRepository.lockDriftedLikeCounts(0L, p.getId());
+        assertThat(driftedLikes).containsExactly(p.getId());
+        assertThat(postRepository.reconcileLikeCounts(driftedLikes)).isEqualTo(1);
+        assertThat(postRepository.reconcileCommentCounts(postRepository.lockDriftedCommentCounts(0L, p.getId()))).isEqualTo(1);
+        assertThat(postRepository.lockDriftedLikeCounts(0L, p.getId())).isEmpty();
+
+        Page<PostFeedRow> page = postRepository.findFeed(PageRequest.of(0, 10));
+        assertThat(page.getTotalElements()).isEqualTo(1L);
+
+        PostFeedRow row = page.getContent().get(0);
+        assertThat(row.authorName()).isEqualTo("Carol");
+        assertThat(row.likeCount()).isEqualTo(1L);
+        assertThat(row.commentCount()).isEqualTo(2L);
+
+        List<Object[]> images = postRepository.findImagesByPostIds(List.of(p.getId()));
+        assertThat(images).hasSize(1);
+        assertThat(images.get(0)[1]).isEqualTo("/uploads/a.jpg");
+
+        Set<Long> liked = likeRepository.findLikedPostIds(u.getId(), List.of(p.getId()));
+        assertThat(liked).containsExactly(p.getId());
+    }
+
+    @Test
+    void searchIdsLike_matchesTitleOrContentWithFilters() {
+        User u = userRepository.save(User.builder().name("Fay").email("fay@example.com").password("p").build());
+        Post a = postRepository.save(Post.builder().title("Buraco na avenida").content("Perigoso").author(u).progress("Resolvido").build());
+        Post b = postRepository.save(Post.builder().title("Lâmpada queimada").content("Há um buraco também").author(u).build());
+        postRepository.save(Post.builder().title("Lixo").content("Acumulado").author(u).build());
+
+        Slice<Long> all = postRepository.searchIdsLike("%buraco%", null, null, PageRequest.of(0, 10));
+        assertThat(all.getContent()).containsExactlyInAnyOrder(a.getId(), b.getId());
+
+        Slice<Long> resolved = postRepository.searchIdsLike("%buraco%", null, "Resolvido", PageRequest.of(0, 10));
+        assertThat(resolved.getContent()).containsExactly(a.getId());
+
+        Slice<Long> firstPage = postRepository.searchIdsLike("%buraco%", null, null, PageRequest.of(0, 1));
+        assertThat(firstPage.getContent()).hasSize(1);
+        assertThat(firstPage.hasNext()).isTrue();
+    }
+
+    @Test
+    void findVersion_andMarkersStamp_followEntityUpdates() {
+        User u = userRepository.save(User.builder().name("Hal").email("hal@example.com").password("p").build());
+        Post post = postRepository.save(Post.builder().title("Poste").content("Apagado").author(u)
+                .latitude(-23.5).longitude(-46.6).build());
+        postRepository.flush();
+
+        Long version = postRepository.findVersion(post.getId()).orElseThrow();
+        String stamp = postRepository.findMarkersStampInBox(-24, -47, -23, -46).tag();
+
+        post.setProgress("Resolvido");
+        postRepository.flush();
+
+        assertThat(postRepository.findVersion(post.getId())).contains(version + 1);
+        assertThat(postRepository.findMarkersStampInBox(-24, -47, -23, -46).tag()).isNotEqualTo(stamp);
+        assertThat(postRepository.findMarkersStampInBox(10, 10, 11, 11).isEmpty()).isTrue();
+    }
+
+    @Test
+    void updateHidden_removesPostFromFeedAndMarkersOnce() {
+        User u = userRepository.save(User.builder().name("Ivy").email("ivy@example.com").password("p").build());
+        Post visible = postRepository.save(Post.builder().title("Calçada").content("Quebrada").author(u)
+                .latitude(-23.5).longitude(-46.6).build());
+        Post flooded = postRepository.save(Post.builder().title("Spam").content("Spam").author(u)
+                .latitude(-23.5).longitude(-46.6).build());
+
+        assertThat(postRepository.updateHidden(flooded.getId(), true)).isEqualTo(1);
+        assertThat(postRepository.updateHidden(flooded.getId(), true)).isZero();
+
+        assertThat(postRepository.findFeedRows(PageRequest.of(0, 10))).extracting(PostFeedRow::id).containsExactly(visible.getId());
+        assertThat(postRepository.findFeed(PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1L);
+        assertThat(postRepository.findFeedRowsByIds(List.of(visible.getId(), flooded.getId()))).hasSize(1);
+        assertThat(postRepository.findMarkersInBox(-24, -47, -23, -46, PageRequest.of(0, 10))).hasSize(1);
+        assertThat(postRepository.findGeoState(flooded.getId())).isEmpty();
+        assertThat(postRepository.searchIdsLike("%spam%", null, null, PageRequest.of(0, 10))).isEmpty();
+        assertThat(postRepository.findSearchRowsByIds(List.of(visible.getId(), flooded.getId())))
+                .extracting(PostSearchRow::id).containsExactly(visible.getId());
+
+        assertThat(postRepository.updateHidden(flooded.getId(), false)).isEqualTo(1);
+        assertThat(postRepository.findGeoState(flooded.getId())).isPresent();
+    }
+
+    @Test
+    void findImagesByPostIds_keepsUploadOrder() {
+        User u = userRepository.save(User.builder().name("Jo").email("jo@example.com").password("p").build());
+        Post p = postRepository.save(Post.builder().title("Árvore").content("Caída").author(u)
+                .images(new ArrayList<>(List.of("/uploads/z.jpg", "/uploads/a.jpg", "/uploads/m.jpg"))).build());
+        postRepository.flush();
+
+        assertThat(postRepository.findImagesByPostIds(List.of(p.getId())))
+                .extracting(tuple -> tuple[1])
+                .containsExactly("/uploads/z.jpg", "/uploads/a.jpg", "/uploads/m.jpg");
+    }
+}
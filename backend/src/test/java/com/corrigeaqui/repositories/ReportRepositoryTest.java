@@ -1,5 +1,6 @@
 package com.corrigeaqui.repositories;
 
+import com.corrigeaqui.dtos.ReportQueueItem;
 import com.corrigeaqui.models.Post;
 import com.corrigeaqui.models.Report;
 import com.corrigeaqui.models.User;
@@ -7,7 +8,10 @@ import com.corrigeaqui.models.enums.ReportStatus;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,6 +28,9 @@ public class ReportRepositoryTest {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void findByStatus_returnsSavedReport() {
         User reporter = User.builder().name("Reporter").email("rep@example.com").password("pass").build();
@@ -39,4 +46,78 @@ public class ReportRepositoryTest {
         assertThat(results).isNotEmpty();
         assertThat(results).extracting(Report::getId).contains(r.getId());
     }
+
+    @Test
+    void findQueue_groupsByTargetAndCountsDistinctReporters() {
+        User alice = userRepository.save(User.builder().name("Alice").email("alice@example.com").password("pass").build());
+        User bob = userRepository.save(User.builder().name("Bob").email("bob@example.com").password("pass").build());
+        Post spam = postRepository.save(Post.builder().title("Spam").content("content").author(alice).build());
+        Post threat = postRepository.save(Post.builder().title("Threat").content("content").author(alice).build());
+
+        reportRepository.save(Report.builder().reason("Spam").reporter(alice).post(spam).priority(20).build());
+        reportRepository.save(Report.builder().reason("Spam").reporter(alice).post(spam).priority(30).build());
+        reportRepository.save(Report.builder().reason("Spam").reporter(bob).post(spam).priority(40).build());
+        reportRepository.save(Report.builder().reason("Ameaça").reporter(bob).post(threat).priority(50).build());
+        reportRepository.save(Report.builder().reason("Old").reporter(bob).post(threat)
+                .status(ReportStatus.REVIEWED).priority(99).build());
+
+        List<ReportQueueItem> queue = reportRepository.findQueue(ReportStatus.PENDING, PageRequest.of(0, 10)).getContent();
+
+        assertThat(queue).extracting(ReportQueueItem::postId).containsExactly(threat.getId(), spam.getId());
+        assertThat(queue.get(1).reports()).isEqualTo(3);
+        assertThat(queue.get(1).reporters()).isEqualTo(2);
+        assertThat(queue.get(1).priority()).isEqualTo(40);
+    }
+
+    @Test
+    void bumpPriorityForPost_raisesOtherPendingReportsOfTheTarget() {
+        User reporter = userRepository.save(User.builder().name("Rep").email("bump@example.com").password("pass").build());
+        Post post = postRepository.save(Post.builder().title("Hello").content("content").author(reporter).build());
+        Report first = reportRepository.save(Report.builder().reason("Spam").reporter(reporter).post(post).priority(20).build());
+        Report second = reportRepository.save(Report.builder().reason("Spam").reporter(reporter).post(post).priority(30).build());
+
+        assertThat(reportRepository.countByPostAndStatus(post.getId(), ReportStatus.PENDING)).isEqualTo(2);
+        assertThat(reportRepository.bumpPriorityForPost(post.getId(), ReportStatus.PENDING, 10, second.getId())).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(reportRepository.findById(first.getId()).orElseThrow().getPriority()).isEqualTo(30);
+    }
+
+    @Test
+    void claim_marksReportsAndLockClaimableSkipsClaimedOnes() {
+        User reporter = userRepository.save(User.builder().name("Rep").email("claim@example.com").password("pass").build());
+        Post post = postRepository.save(Post.builder().title("Hello").content("content").author(reporter).build());
+        Report low = reportRepository.save(Report.builder().reason("x").reporter(reporter).post(post).priority(10).build());
+        Report high = reportRepository.save(Report.builder().reason("y").reporter(reporter).post(post).priority(50).build());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = reportRepository.lockClaimable(now.minusMinutes(30), 1);
+        assertThat(ids).containsExactly(high.getId());
+
+        reportRepository.claim(ids, reporter.getId(), now);
+        assertThat(reportRepository.lockClaimable(now.minusMinutes(30), 10)).containsExactly(low.getId());
+        // Reivindicação vencida volta para a fila
+        assertThat(reportRepository.lockClaimable(now.plusMinutes(1), 10)).containsExactly(high.getId(), low.getId());
+    }
+
+    @Test
+    void bulkUpdate_changesOnlyGivenFieldsOfMatchingReports() {
+        User reporter = userRepository.save(User.builder().name("Rep").email("bulk@example.com").password("pass").build());
+        Post post = postRepository.save(Post.builder().title("Hello").content("content").author(reporter).build());
+        Report first = reportRepository.save(Report.builder().reason("x").reporter(reporter).post(post).notes("keep").build());
+        Report second = reportRepository.save(Report.builder().reason("y").reporter(reporter).post(post).build());
+
+        List<Long> ids = reportRepository.findIdsMatching(ReportStatus.PENDING, post.getId(), null, null, PageRequest.of(0, 10));
+        assertThat(ids).containsExactly(first.getId(), second.getId());
+        assertThat(reportRepository.findExistingIds(List.of(first.getId(), -1L))).containsExactly(first.getId());
+
+        assertThat(reportRepository.bulkUpdate(ids, ReportStatus.REVIEWED, "duplicate", null)).isEqualTo(2);
+        entityManager.clear();
+
+        Report updated = reportRepository.findById(first.getId()).orElseThrow();
+        assertThat(updated.getStatus()).isEqualTo(ReportStatus.REVIEWED);
+        assertThat(updated.getResolution()).isEqualTo("duplicate");
+        assertThat(updated.getNotes()).isEqualTo("keep");
+        assertThat(reportRepository.findIdsMatching(ReportStatus.PENDING, post.getId(), null, null, PageRequest.of(0, 10))).isEmpty();
+    }
 }
@@ -0,0 +1,73 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.models.StoredFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class StoredFileRepositoryTest {
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Test
+    void release_deletesOnlyWhenNoReferencesRemain() {
+        String sha = "a".repeat(64);
+        save(sha, 2L);
+        LocalDateTime later = LocalDateTime.now().plusMinutes(1);
+
+        assertThat(storedFileRepository.findPathBySha256(sha)).contains(sha + ".jpg");
+
+        assertThat(storedFileRepository.release(sha + ".jpg", 1)).isEqualTo(1);
+        assertThat(storedFileRepository.deleteUnreferenced(sha + ".jpg", later)).isZero();
+
+        assertThat(storedFileRepository.release(sha + ".jpg", 1)).isEqualTo(1);
+        assertThat(storedFileRepository.release(sha + ".jpg", 1)).isZero();
+        assertThat(storedFileRepository.deleteUnreferenced(sha + ".jpg", later)).isEqualTo(1);
+        assertThat(storedFileRepository.findPathBySha256(sha)).isEmpty();
+    }
+
+    @Test
+    void attach_countsRegisteredPathsAndIgnoresUnknownOnes() {
+        String sha = "b".repeat(64);
+        StoredFile file = save(sha, 0L);
+
+        assertThat(storedFileRepository.attach(List.of(sha + ".jpg", "legacy-uuid.jpg"))).isEqualTo(1);
+        assertThat(storedFileRepository.attach(List.of(sha + ".jpg"))).isEqualTo(1);
+        assertThat(storedFileRepository.findUnreferenced(0L, LocalDateTime.now().plusMinutes(1), PageRequest.of(0, 10)))
+                .isEmpty();
+
+        // Soltar mais do que havia não deixa o contador negativo
+        assertThat(storedFileRepository.release(sha + ".jpg", 5)).isEqualTo(1);
+        assertThat(storedFileRepository.findUnreferenced(0L, LocalDateTime.now().plusMinutes(1), PageRequest.of(0, 10)))
+                .extracting(StoredFile::getId).containsExactly(file.getId());
+    }
+
+    @Test
+    void deleteUnreferenced_keepsUploadsInsideGracePeriod() {
+        String sha = "c".repeat(64);
+        save(sha, 0L);
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(1);
+
+        assertThat(storedFileRepository.findUnreferenced(0L, cutoff, PageRequest.of(0, 10))).isEmpty();
+        assertThat(storedFileRepository.deleteUnreferenced(sha + ".jpg", cutoff)).isZero();
+        assertThat(storedFileRepository.findPathBySha256(sha)).isPresent();
+    }
+
+    private StoredFile save(String sha, long refCount) {
+        return storedFileRepository.save(StoredFile.builder()
+                .sha256(sha)
+                .path(sha + ".jpg")
+                .size(1024L)
+                .contentType("image/jpeg")
+                .refCount(refCount)
+                .build());
+    }
+}
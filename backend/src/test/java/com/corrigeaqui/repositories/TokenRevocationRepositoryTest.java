@@ -0,0 +1,51 @@
+package com.corrigeaqui.repositories;
+
+import com.corrigeaqui.models.TokenRevocation;
+import com.corrigeaqui.models.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class TokenRevocationRepositoryTest {
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void onlyRevocationsInsideTokenLifetimeAreLoadedAndKept() {
+        LocalDateTime now = LocalDateTime.now();
+        tokenRevocationRepository.saveAndFlush(TokenRevocation.builder()
+                .userId(7L).minVersion(3).revokedAt(now.minusDays(2)).build());
+        tokenRevocationRepository.saveAndFlush(TokenRevocation.builder()
+                .userId(8L).minVersion(Integer.MAX_VALUE).revokedAt(now.minusMinutes(5)).build());
+        LocalDateTime cutoff = now.minusDays(1);
+
+        assertThat(tokenRevocationRepository.findRevokedSince(cutoff))
+                .extracting(TokenRevocation::getUserId).containsExactly(8L);
+
+        assertThat(tokenRevocationRepository.deleteRevokedBefore(cutoff)).isEqualTo(1);
+        assertThat(tokenRevocationRepository.findAll())
+                .extracting(TokenRevocation::getUserId).containsExactly(8L);
+    }
+
+    @Test
+    void seedFromUsers_copiesRecentVersionBumpsOnce() {
+        User changed = userRepository.save(User.builder().name("Ana").email("ana@example.com").password("p")
+                .tokenVersion(2).build());
+        userRepository.save(User.builder().name("Bia").email("bia@example.com").password("p").build());
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(1);
+
+        assertThat(tokenRevocationRepository.seedFromUsers(cutoff)).isEqualTo(1);
+        assertThat(tokenRevocationRepository.seedFromUsers(cutoff)).isZero();
+        assertThat(tokenRevocationRepository.findById(changed.getId()))
+                .get().extracting(TokenRevocation::getMinVersion).isEqualTo(2);
+    }
+}
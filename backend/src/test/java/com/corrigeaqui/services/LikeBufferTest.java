@@ -0,0 +1,205 @@
+package com.corrigeaqui.services;
+
+import com.corrigeaqui.services.LikeBuffer.Target;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Banco simulado: likes como conjunto "usuário:alvo", cada instrução anotada com a transação em que rodou
+public class LikeBufferTest {
+
+    private final Set<String> likes = new HashSet<>();
+    private final Set<Long> missingTargets = new HashSet<>();
+    private final List<String> writes = new ArrayList<>();
+    private final Map<String, Integer> writeTx = new HashMap<>();
+    private final Map<String, Integer> eventTx = new HashMap<>();
+    private final List<Object> published = new ArrayList<>();
+    private int transactions;
+    private int counterBatches;
+    private Consumer<String> beforeWrite = sql -> { };
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            beforeWrite.accept(sql);
+            for (Object[] args : batchArgs) {
+                check(sql, args);
+            }
+            if (sql.startsWith("UPDATE") && !batchArgs.isEmpty()) {
+                counterBatches++;
+            }
+            return batchArgs.stream().mapToInt(args -> apply(sql, args)).toArray();
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            check(sql, args);
+            return apply(sql, args);
+        }
+    };
+
+    private final PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            transactions++;
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    };
+
+    private final OutboxService outboxService = new OutboxService(null, null) {
+        @Override
+        public void record(String aggregateType, Object aggregateId, String eventType, Map<String, Object> payload) {
+            eventTx.put(aggregateType + " " + aggregateId + " " + payload.get("delta"), transactions);
+        }
+    };
+
+    private final LikeBuffer buffer = new LikeBuffer(jdbcTemplate, new TransactionTemplate(transactionManager),
+            published::add, outboxService,
+            new FeedCache(new ConcurrentMapCacheManager(FeedCache.FEED_CACHE, FeedCache.MARKERS_CACHE)),
+            true, Duration.ofSeconds(1), 10_000, 4);
+
+    private void check(String sql, Object[] args) {
+        if (sql.startsWith("INSERT") && missingTargets.contains((Long) args[1])) {
+            throw new DataIntegrityViolationException("fk violation");
+        }
+    }
+
+    private int apply(String sql, Object[] args) {
+        String statement = sql.substring(0, sql.indexOf(' ')) + " " + args[0] + " " + args[1];
+        writes.add(statement);
+        writeTx.put(statement, transactions);
+        String row = args[0] + ":" + args[1];
+        if (sql.startsWith("INSERT")) {
+            return likes.add(row) ? 1 : 0;
+        }
+        if (sql.startsWith("DELETE")) {
+            return likes.remove(row) ? 1 : 0;
+        }
+        return 1;
+    }
+
+    @Test
+    void lastIntentPerUserAndTargetWins() {
+        buffer.record(Target.POST, 1L, 10L, true);
+        buffer.record(Target.POST, 1L, 10L, false);
+        buffer.record(Target.POST, 1L, 10L, true);
+
+        buffer.flush();
+
+        assertThat(writes).containsExactly("INSERT 1 10", "UPDATE 1 10");
+        assertThat(likes).containsExactly("1:10");
+    }
+
+    @Test
+    void pendingIntentIsVisibleUntilTheWriteIsConfirmed() {
+        likes.add("1:11");
+        buffer.record(Target.POST, 1L, 10L, true);
+        buffer.record(Target.POST, 1L, 11L, false);
+
+        assertThat(buffer.pending(Target.POST, 1L, 10L)).isTrue();
+        assertThat(buffer.pending(Target.POST, 2L, 10L)).isNull();
+        assertThat(buffer.overlay(Target.POST, 1L, List.of(10L, 11L, 12L), Set.of(11L, 12L)))
+                .containsExactlyInAnyOrder(10L, 12L);
+
+        // Durante a escrita a intenção já saiu da partição, mas continua visível (inFlight)
+        List<Boolean> seenDuringWrite = new ArrayList<>();
+        beforeWrite = sql -> seenDuringWrite.add(buffer.pending(Target.POST, 1L, 10L));
+        buffer.flush();
+
+        assertThat(seenDuringWrite).isNotEmpty().containsOnly(true);
+        assertThat(buffer.pending(Target.POST, 1L, 10L)).isNull();
+        assertThat(buffer.pending(Target.POST, 1L, 11L)).isNull();
+        assertThat(buffer.overlay(Target.POST, 1L, List.of(10L, 11L, 12L), Set.of(10L, 12L)))
+                .containsExactlyInAnyOrder(10L, 12L);
+    }
+
+    @Test
+    void failedFlushRequeuesWithoutOverwritingNewerIntents() {
+        buffer.record(Target.POST, 1L, 10L, true);
+        buffer.record(Target.POST, 2L, 10L, true);
+        beforeWrite = sql -> {
+            // Chega durante a descarga, que em seguida falha
+            buffer.record(Target.POST, 1L, 10L, false);
+            throw new DataAccessResourceFailureException("database down");
+        };
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(writes).isEmpty();
+        assertThat(buffer.pending(Target.POST, 1L, 10L)).isFalse();
+        assertThat(buffer.pending(Target.POST, 2L, 10L)).isTrue();
+
+        beforeWrite = sql -> { };
+        buffer.flush();
+
+        assertThat(likes).containsExactly("2:10");
+        assertThat(writes).containsExactlyInAnyOrder("INSERT 2 10", "DELETE 1 10", "UPDATE 1 10");
+        assertThat(buffer.pending(Target.POST, 1L, 10L)).isNull();
+    }
+
+    @Test
+    void netCounterDeltasAreAppliedOncePerTargetAndBatch() {
+        likes.add("4:10");
+        buffer.record(Target.POST, 1L, 10L, true);
+        buffer.record(Target.POST, 2L, 10L, true);
+        buffer.record(Target.POST, 3L, 10L, true);
+        buffer.record(Target.POST, 4L, 10L, false);
+        buffer.record(Target.POST, 1L, 11L, true);
+        buffer.record(Target.POST, 5L, 11L, false); // nunca curtiu: não mexe no contador
+        buffer.record(Target.COMMENT, 1L, 7L, true);
+
+        buffer.flush();
+
+        assertThat(writes).filteredOn(w -> w.startsWith("UPDATE"))
+                .containsExactlyInAnyOrder("UPDATE 2 10", "UPDATE 1 11", "UPDATE 1 7");
+        assertThat(counterBatches).isEqualTo(2);
+        assertThat(transactions).isEqualTo(2);
+        assertThat(eventTx).containsOnlyKeys("post 10 2", "post 11 1", "comment 7 1");
+        assertThat(published).hasSize(2);
+    }
+
+    @Test
+    void integrityViolationFallsBackToOneTransactionPerRow() {
+        missingTargets.add(99L);
+        likes.add("3:10");
+        buffer.record(Target.POST, 1L, 10L, true);
+        buffer.record(Target.POST, 2L, 99L, true);
+        buffer.record(Target.POST, 3L, 10L, false);
+
+        buffer.flush();
+
+        assertThat(likes).containsExactly("1:10");
+        // Lote desfeito + uma transação por linha, inclusive a descartada
+        assertThat(transactions).isEqualTo(4);
+        assertThat(eventTx).containsOnlyKeys("post 10 1", "post 10 -1");
+        assertThat(eventTx.get("post 10 1")).isEqualTo(writeTx.get("INSERT 1 10"));
+        assertThat(eventTx.get("post 10 -1")).isEqualTo(writeTx.get("DELETE 3 10"));
+        assertThat(writeTx.get("INSERT 1 10")).isNotEqualTo(writeTx.get("DELETE 3 10"));
+    }
+}
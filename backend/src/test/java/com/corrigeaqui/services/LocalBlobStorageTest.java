@@ -0,0 +1,65 @@
+package com.corrigeaqui.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LocalBlobStorageTest {
+
+    private static final String HASH_KEY = "ab12" + "0".repeat(60) + ".jpg";
+
+    @TempDir
+    Path root;
+
+    @Test
+    void put_shardsByHashPrefixAndServesContent() throws IOException {
+        LocalBlobStorage storage = new LocalBlobStorage(root.toString());
+        Path tmp = storage.createTempFile("test-");
+        Files.writeString(tmp, "conteúdo");
+
+        storage.put(HASH_KEY, tmp, "image/jpeg");
+
+        assertThat(root.resolve("ab").resolve("12").resolve(HASH_KEY)).isRegularFile();
+        assertThat(storage.exists(HASH_KEY)).isTrue();
+        Resource resource = storage.get(HASH_KEY).orElseThrow();
+        assertThat(resource.contentLength()).isEqualTo("conteúdo".getBytes(StandardCharsets.UTF_8).length);
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("conteúdo");
+        }
+
+        storage.delete(HASH_KEY);
+        assertThat(storage.exists(HASH_KEY)).isFalse();
+    }
+
+    @Test
+    void get_fallsBackToLegacyFlatLayout() throws IOException {
+        Files.writeString(root.resolve("antigo-uuid.png"), "png");
+        LocalBlobStorage storage = new LocalBlobStorage(root.toString());
+
+        assertThat(storage.get("antigo-uuid.png")).isPresent();
+        assertThat(storage.shardedPath("antigo-uuid.png").getParent().getParent().getParent()).isEqualTo(root);
+
+        storage.delete("antigo-uuid.png");
+        assertThat(storage.get("antigo-uuid.png")).isEmpty();
+    }
+
+    @Test
+    void invalidKeys_areNeverResolved() throws IOException {
+        Files.writeString(root.resolve("segredo.txt"), "x");
+        LocalBlobStorage storage = new LocalBlobStorage(root.resolve("uploads").toString());
+
+        assertThat(storage.get("../segredo.txt")).isEmpty();
+        assertThat(storage.get("..")).isEmpty();
+        assertThatThrownBy(() -> storage.put("a/b.jpg", root.resolve("segredo.txt"), "text/plain"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,25 @@
+package com.corrigeaqui.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class GeoHashTest {
+
+    @Test
+    void encode_matchesReferenceHash() {
+        assertThat(GeoHash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+    }
+
+    @Test
+    void bounds_containsEncodedPoint() {
+        double lat = -27.5954;
+        double lng = -48.5480;
+        double[] box = GeoHash.bounds(GeoHash.encode(lat, lng, 6));
+
+        assertThat(lat).isBetween(box[0], box[2]);
+        assertThat(lng).isBetween(box[1], box[3]);
+        assertThat(box[2] - box[0]).isCloseTo(0.0055, within(0.001));
+    }
+}
@@ -0,0 +1,64 @@
+package com.corrigeaqui.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvertedIndexTest {
+
+    @Test
+    void tokens_foldAccentsStopwordsAndPlurals() {
+        assertThat(TextAnalyzer.tokens("Lâmpadas queimadas na Avenida")).containsExactly("lampada", "queimada", "avenida");
+        assertThat(TextAnalyzer.tokens("ligações")).isEqualTo(TextAnalyzer.tokens("ligação"));
+    }
+
+    @Test
+    void search_ranksTitleMatchesAndAppliesFilters() {
+        InvertedIndex index = new InvertedIndex();
+        index.putPost(1, "Buraco na rua", "Perigoso para motos", 10L, "Resolvido");
+        index.putPost(2, "Lâmpada queimada", "Tem um buraco perto também", 10L, null);
+        index.putPost(3, "Lixo acumulado", "Calçada suja", 20L, null);
+
+        assertThat(index.search("buracos", null, null, 10)).containsExactly(1L, 2L);
+        assertThat(index.search("lampada", null, null, 10)).containsExactly(2L);
+        assertThat(index.search("buraco", null, "Resolvido", 10)).containsExactly(1L);
+        assertThat(index.search("buraco lixo", 20L, null, 10)).containsExactly(3L);
+        assertThat(index.search("buraco", null, null, 1)).containsExactly(1L);
+    }
+
+    @Test
+    void comments_scoreForTheirPostUntilRemoved() {
+        InvertedIndex index = new InvertedIndex();
+        index.putPost(1, "Semáforo quebrado", "Cruzamento central", null, null);
+        index.putComment(7, 1, "Continua piscando amarelo");
+
+        assertThat(index.search("amarelo", null, null, 10)).containsExactly(1L);
+
+        index.putComment(7, 1, "Já foi consertado");
+        assertThat(index.search("amarelo", null, null, 10)).isEmpty();
+
+        index.removePost(1);
+        assertThat(index.search("consertado", null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void snapshot_roundTripsDocumentsAndWatermarks() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        index.putPost(5, "Calçada quebrada", "Raízes de árvore", 3L, "Em Andamento");
+        index.putPost(6, "Poste caído", "Fios expostos", 3L, null);
+        index.putComment(9, 6, "Calçada também ficou ruim");
+        index.removePost(6);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.writeTo(out);
+        InvertedIndex restored = InvertedIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(restored.search("calcada", 3L, "Em Andamento", 10)).containsExactly(5L);
+        assertThat(restored.maxPostId()).isEqualTo(6L);
+        assertThat(restored.maxCommentId()).isEqualTo(9L);
+    }
+}
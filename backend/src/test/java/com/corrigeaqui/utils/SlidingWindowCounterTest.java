@@ -0,0 +1,69 @@
+package com.corrigeaqui.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Janela de 10s em 10 baldes de 1s
+public class SlidingWindowCounterTest {
+
+    private final SlidingWindowCounter<String> counter = new SlidingWindowCounter<>(Duration.ofSeconds(10), 10, 4);
+
+    @Test
+    void incrementReturnsTotalWithinWindow() {
+        assertThat(counter.increment("post:1", 0)).isEqualTo(1);
+        assertThat(counter.increment("post:1", 500)).isEqualTo(2);
+        assertThat(counter.increment("post:1", 9_000)).isEqualTo(3);
+        assertThat(counter.increment("post:2", 9_000)).isEqualTo(1);
+
+        // Os dois primeiros (balde 0) saem quando a janela passa de 10s
+        assertThat(counter.count("post:1", 10_000)).isEqualTo(1);
+        assertThat(counter.increment("post:1", 10_000)).isEqualTo(2);
+        assertThat(counter.count("post:1", 30_000)).isZero();
+    }
+
+    @Test
+    void lateTimestampCountsInLatestBucket() {
+        counter.increment("post:1", 25_000);
+        assertThat(counter.increment("post:1", 14_000)).isEqualTo(2);
+        assertThat(counter.count("post:1", 25_000)).isEqualTo(2);
+    }
+
+    @Test
+    void evictIdleDropsKeysOutsideWindow() {
+        counter.increment("post:1", 0);
+        counter.increment("post:2", 8_000);
+
+        assertThat(counter.evictIdle(12_000)).isEqualTo(1);
+        assertThat(counter.size()).isEqualTo(1);
+        assertThat(counter.count("post:2", 12_000)).isEqualTo(1);
+
+        counter.reset("post:2");
+        assertThat(counter.size()).isZero();
+    }
+
+    @Test
+    void markOnceHoldsUntilKeyGoesIdle() {
+        counter.increment("post:1", 0);
+        assertThat(counter.markOnce("post:1", 1)).isTrue();
+        assertThat(counter.markOnce("post:1", 1)).isFalse();
+        assertThat(counter.markOnce("post:1", 2)).isTrue();
+
+        // Eventos seguidos mantêm a chave (e a marca), mesmo com os baldes antigos vencendo
+        counter.increment("post:1", 9_000);
+        counter.evictIdle(15_000);
+        assertThat(counter.markOnce("post:1", 1)).isFalse();
+
+        counter.evictIdle(20_000);
+        assertThat(counter.markOnce("post:1", 1)).isTrue();
+    }
+
+    @Test
+    void rejectsBucketsShorterThanOneMillisecond() {
+        assertThatThrownBy(() -> new SlidingWindowCounter<String>(Duration.ofMillis(5), 10, 4))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.corrigeaqui.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+// Duas "instâncias" com L2 compartilhado (ConcurrentMapCache no lugar do Redis) e um
+// barramento em memória no lugar do pub/sub
+public class TwoLevelCacheTest {
+
+    private final Cache shared = new ConcurrentMapCache("feed");
+    private final List<TwoLevelCache> nodes = new ArrayList<>();
+    private final SimpleMeterRegistry registryA = new SimpleMeterRegistry();
+
+    private final TwoLevelCache nodeA = node(registryA);
+    private final TwoLevelCache nodeB = node(new SimpleMeterRegistry());
+
+    private TwoLevelCache node(SimpleMeterRegistry registry) {
+        TwoLevelCache[] self = new TwoLevelCache[1];
+        TwoLevelCache.Publisher bus = (cacheName, key) -> nodes.stream()
+                .filter(n -> n != self[0])
+                .forEach(n -> {
+                    if (key == null) {
+                        n.clearLocal();
+                    } else {
+                        n.evictLocal(String.valueOf(key));
+                    }
+                });
+        self[0] = new TwoLevelCache(new CaffeineCache("feed", Caffeine.newBuilder().build()), shared, bus, registry);
+        nodes.add(self[0]);
+        return self[0];
+    }
+
+    @Test
+    void valueLoadedOnOneNodeIsServedFromL2OnTheOther() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(nodeA.get("first:20", () -> "page-" + loads.incrementAndGet())).isEqualTo("page-1");
+        assertThat(nodeB.get("first:20", () -> "page-" + loads.incrementAndGet())).isEqualTo("page-1");
+        assertThat(nodeA.get("first:20", () -> "page-" + loads.incrementAndGet())).isEqualTo("page-1");
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void clearOnOneNodeDropsL1OfTheOthers() {
+        nodeA.get("first:20", () -> "old");
+        nodeB.get("first:20", () -> "old");
+
+        nodeA.clear();
+
+        assertThat(nodeB.get("first:20", () -> "new")).isEqualTo("new");
+        assertThat(nodeA.get("first:20", () -> "newer")).isEqualTo("new");
+    }
+
+    @Test
+    void evictOnOneNodeDropsTheKeyEverywhere() {
+        nodeA.put(42L, "category");
+        assertThat(nodeB.get(42L).get()).isEqualTo("category");
+
+        nodeB.evict(42L);
+
+        assertThat(nodeA.get(42L)).isNull();
+        assertThat(nodeB.get(42L)).isNull();
+    }
+
+    @Test
+    void failingL2FallsBackToL1() {
+        Cache broken = new ConcurrentMapCache("feed") {
+            @Override
+            public ValueWrapper get(Object key) {
+                throw new IllegalStateException("connection refused");
+            }
+
+            @Override
+            public void put(Object key, Object value) {
+                throw new IllegalStateException("connection refused");
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TwoLevelCache cache = new TwoLevelCache(
+                new CaffeineCache("feed", Caffeine.newBuilder().build()), broken, null, registry);
+
+        assertThat(cache.get("k", () -> "v")).isEqualTo("v");
+        assertThat(cache.get("k", () -> "other")).isEqualTo("v");
+        assertThat(registry.get("cache.tiered.remote.errors").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void hitRatioCountsBothLevels() {
+        nodeB.get("k", () -> "v");          // miss em B, grava no L2
+        nodeA.get("k", () -> "unused");     // L2 hit em A
+        nodeA.get("k", () -> "unused");     // L1 hit em A
+        nodeA.get("other", () -> "x");      // miss em A
+
+        assertThat(registryA.get("cache.tiered.gets").tag("result", "l1_hit").counter().count()).isEqualTo(1);
+        assertThat(registryA.get("cache.tiered.gets").tag("result", "l2_hit").counter().count()).isEqualTo(1);
+        assertThat(registryA.get("cache.tiered.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(registryA.get("cache.tiered.hit.ratio").tag("cache", "feed").gauge().value())
+                .isCloseTo(2.0 / 3, within(1e-9));
+    }
+}